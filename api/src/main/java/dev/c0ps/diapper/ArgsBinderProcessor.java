@@ -0,0 +1,389 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * Generates an {@link IArgsBinder} for every args class, which allows the
+ * Runner to bind options without JCommander's reflective field handling. Args
+ * classes that use advanced JCommander features (e.g., converters, validators,
+ * delegates, inheritance, or private fields) are skipped and remain parsed
+ * through JCommander.
+ */
+@SupportedAnnotationTypes(ArgsBinderProcessor.PARAMETER)
+public class ArgsBinderProcessor extends AbstractProcessor {
+
+    /* pkg protected */ static final String PARAMETER = "com.beust.jcommander.Parameter";
+    private static final String PARAMETERS = "com.beust.jcommander.Parameters";
+    private static final String JCOMMANDER_PKG = "com.beust.jcommander.";
+    private static final Set<String> SIMPLE_ATTRIBUTES = Set.of("names", "description", "descriptionKey", "arity", "hidden", "order", "help");
+
+    private final Set<String> generated = new LinkedHashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        var parameter = processingEnv.getElementUtils().getTypeElement(PARAMETER);
+        if (roundEnv.processingOver() || parameter == null) {
+            return false;
+        }
+        var types = new LinkedHashSet<TypeElement>();
+        for (var e : roundEnv.getElementsAnnotatedWith(parameter)) {
+            if (e.getEnclosingElement() instanceof TypeElement) {
+                types.add((TypeElement) e.getEnclosingElement());
+            }
+        }
+        for (var type : types) {
+            var fields = findFields(type);
+            var name = processingEnv.getElementUtils().getBinaryName(type).toString();
+            if (fields != null && generated.add(name)) {
+                generate(type, ArgsBinders.binderName(name), fields);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return all bindable fields, mapped to their option names, or null if the
+     *         type uses features that are not supported.
+     */
+    private Map<VariableElement, Field> findFields(TypeElement type) {
+        if (!isInstantiable(type) || hasParametersInSuperclass(type) || hasClassLevelParameters(type)) {
+            return null;
+        }
+        var fields = new LinkedHashMap<VariableElement, Field>();
+        for (var e : type.getEnclosedElements()) {
+            var mirrors = jcommanderAnnotations(e);
+            if (mirrors.isEmpty()) {
+                continue;
+            }
+            if (e.getKind() != ElementKind.FIELD || mirrors.size() > 1 || !PARAMETER.equals(name(mirrors.iterator().next()))) {
+                return null;
+            }
+            var f = toField((VariableElement) e, mirrors.iterator().next());
+            if (f == null) {
+                return null;
+            }
+            fields.put((VariableElement) e, f);
+        }
+        return fields;
+    }
+
+    private Field toField(VariableElement e, AnnotationMirror parameter) {
+        var mods = e.getModifiers();
+        if (mods.contains(Modifier.PRIVATE) || mods.contains(Modifier.FINAL) || mods.contains(Modifier.STATIC)) {
+            return null;
+        }
+        var f = new Field();
+        var arity = -1;
+        for (var kv : parameter.getElementValues().entrySet()) {
+            var attr = kv.getKey().getSimpleName().toString();
+            if (!SIMPLE_ATTRIBUTES.contains(attr)) {
+                return null;
+            }
+            if ("names".equals(attr)) {
+                @SuppressWarnings("unchecked")
+                var names = (Iterable<AnnotationValue>) kv.getValue().getValue();
+                for (var n : names) {
+                    f.names.add((String) n.getValue());
+                }
+            }
+            if ("arity".equals(attr)) {
+                arity = (Integer) kv.getValue().getValue();
+            }
+        }
+        if (f.names.isEmpty()) {
+            // main parameter
+            return null;
+        }
+        var type = e.asType();
+        if (isBoolean(type) && arity <= 0) {
+            f.isFlag = true;
+            f.isPrimitive = type.getKind() == TypeKind.BOOLEAN;
+            return f;
+        }
+        if (arity != -1 && arity != 1) {
+            return null;
+        }
+        f.conversion = conversion(type);
+        if (f.conversion == null) {
+            var elem = listElement(type);
+            f.conversion = elem == null ? null : conversion(elem);
+            f.isList = true;
+        }
+        return f.conversion == null ? null : f;
+    }
+
+    private boolean isInstantiable(TypeElement type) {
+        var mods = type.getModifiers();
+        if (type.getKind() != ElementKind.CLASS || mods.contains(Modifier.ABSTRACT) || !isAccessible(type)) {
+            return false;
+        }
+        for (var c : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAccessible(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        if (type.getNestingKind() == NestingKind.TOP_LEVEL) {
+            return true;
+        }
+        return type.getNestingKind() == NestingKind.MEMBER //
+                && type.getModifiers().contains(Modifier.STATIC) //
+                && isAccessible((TypeElement) type.getEnclosingElement());
+    }
+
+    private boolean hasParametersInSuperclass(TypeElement type) {
+        var sup = type.getSuperclass();
+        while (sup.getKind() == TypeKind.DECLARED) {
+            var el = (TypeElement) ((DeclaredType) sup).asElement();
+            for (var e : el.getEnclosedElements()) {
+                if (!jcommanderAnnotations(e).isEmpty()) {
+                    return true;
+                }
+            }
+            sup = el.getSuperclass();
+        }
+        return false;
+    }
+
+    /**
+     * Class-level settings like "separators" change how options are read, which
+     * only JCommander supports. The annotation is inherited.
+     */
+    private static boolean hasClassLevelParameters(TypeElement type) {
+        var t = type;
+        while (true) {
+            for (var m : t.getAnnotationMirrors()) {
+                if (PARAMETERS.equals(name(m))) {
+                    return true;
+                }
+            }
+            var sup = t.getSuperclass();
+            if (sup.getKind() != TypeKind.DECLARED) {
+                return false;
+            }
+            t = (TypeElement) ((DeclaredType) sup).asElement();
+        }
+    }
+
+    private static Set<AnnotationMirror> jcommanderAnnotations(Element e) {
+        var mirrors = new LinkedHashSet<AnnotationMirror>();
+        for (var m : e.getAnnotationMirrors()) {
+            if (name(m).startsWith(JCOMMANDER_PKG)) {
+                mirrors.add(m);
+            }
+        }
+        return mirrors;
+    }
+
+    private static String name(AnnotationMirror m) {
+        return ((TypeElement) m.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private boolean isBoolean(TypeMirror type) {
+        return type.getKind() == TypeKind.BOOLEAN || isType(type, Boolean.class);
+    }
+
+    /**
+     * @return an expression that converts the variable "value" into the given type
+     */
+    private String conversion(TypeMirror type) {
+        switch (type.getKind()) {
+        case INT:
+            return "dev.c0ps.diapper.ArgsBinders.toInt(name, value)";
+        case LONG:
+            return "dev.c0ps.diapper.ArgsBinders.toLong(name, value)";
+        case DOUBLE:
+            return "dev.c0ps.diapper.ArgsBinders.toDouble(name, value)";
+        case FLOAT:
+            return "dev.c0ps.diapper.ArgsBinders.toFloat(name, value)";
+        case BOOLEAN:
+            return "dev.c0ps.diapper.ArgsBinders.toBoolean(name, value)";
+        case DECLARED:
+            break;
+        default:
+            return null;
+        }
+        var conversions = Map.of( //
+                String.class, "toString", //
+                Integer.class, "toInt", //
+                Long.class, "toLong", //
+                Double.class, "toDouble", //
+                Float.class, "toFloat", //
+                Boolean.class, "toBoolean", //
+                java.io.File.class, "toFile", //
+                java.nio.file.Path.class, "toPath");
+        for (var kv : conversions.entrySet()) {
+            if (isType(type, kv.getKey())) {
+                return "dev.c0ps.diapper.ArgsBinders." + kv.getValue() + "(name, value)";
+            }
+        }
+        var el = (TypeElement) ((DeclaredType) type).asElement();
+        if (el.getKind() == ElementKind.ENUM && isAccessible(el)) {
+            return "dev.c0ps.diapper.ArgsBinders.toEnum(" + el.getQualifiedName() + ".class, name, value)";
+        }
+        return null;
+    }
+
+    private TypeMirror listElement(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        var args = ((DeclaredType) type).getTypeArguments();
+        if (!isType(type, java.util.List.class) || args.size() != 1 || args.get(0).getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return args.get(0);
+    }
+
+    private boolean isType(TypeMirror type, Class<?> c) {
+        var el = processingEnv.getElementUtils().getTypeElement(c.getName());
+        var types = processingEnv.getTypeUtils();
+        return el != null && types.isSameType(types.erasure(type), types.erasure(el.asType()));
+    }
+
+    private void generate(TypeElement type, String binderName, Map<VariableElement, Field> fields) {
+        var idx = binderName.lastIndexOf('.');
+        var pkg = idx == -1 ? "" : binderName.substring(0, idx);
+        var simpleName = binderName.substring(idx + 1);
+        var argsType = type.getQualifiedName().toString();
+
+        var sb = new StringBuilder();
+        if (!pkg.isEmpty()) {
+            sb.append("package ").append(pkg).append(";\n\n");
+        }
+        sb.append("@javax.annotation.processing.Generated(\"").append(ArgsBinderProcessor.class.getName()).append("\")\n");
+        sb.append("public final class ").append(simpleName).append(" implements dev.c0ps.diapper.IArgsBinder<").append(argsType).append("> {\n\n");
+
+        sb.append("    private static final java.util.Map<String, String> FIELDS = java.util.Map.ofEntries(");
+        var isFirstEntry = true;
+        for (var kv : fields.entrySet()) {
+            for (var n : kv.getValue().names) {
+                sb.append(isFirstEntry ? "\n" : ",\n");
+                sb.append("            java.util.Map.entry(").append(literal(n)).append(", ").append(literal(kv.getKey().getSimpleName().toString())).append(")");
+                isFirstEntry = false;
+            }
+        }
+        sb.append(");\n\n");
+
+        sb.append("    @Override\n");
+        sb.append("    public ").append(argsType).append(" create() {\n");
+        sb.append("        return new ").append(argsType).append("();\n");
+        sb.append("    }\n\n");
+
+        sb.append("    @Override\n");
+        sb.append("    public java.util.Map<String, String> fields() {\n");
+        sb.append("        return FIELDS;\n");
+        sb.append("    }\n\n");
+
+        sb.append("    @Override\n");
+        sb.append("    public int arity(String name) {\n");
+        sb.append("        switch (FIELDS.get(name)) {\n");
+        var hasFlags = false;
+        for (var kv : fields.entrySet()) {
+            if (kv.getValue().isFlag) {
+                sb.append("        case ").append(literal(kv.getKey().getSimpleName().toString())).append(":\n");
+                hasFlags = true;
+            }
+        }
+        if (hasFlags) {
+            sb.append("            return 0;\n");
+        }
+        sb.append("        default:\n");
+        sb.append("            return 1;\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+
+        sb.append("    @Override\n");
+        sb.append("    public void bind(").append(argsType).append(" obj, String name, String value, boolean isFirst) {\n");
+        sb.append("        switch (FIELDS.get(name)) {\n");
+        for (var kv : fields.entrySet()) {
+            var field = kv.getKey().getSimpleName().toString();
+            var f = kv.getValue();
+            sb.append("        case ").append(literal(field)).append(":\n");
+            if (f.isFlag && f.isPrimitive) {
+                sb.append("            obj.").append(field).append(" = !obj.").append(field).append(";\n");
+            } else if (f.isFlag) {
+                sb.append("            obj.").append(field).append(" = obj.").append(field).append(" == null || !obj.").append(field).append(";\n");
+            } else if (f.isList) {
+                var conv = f.conversion.replace("value)", "v)");
+                sb.append("            obj.").append(field).append(" = dev.c0ps.diapper.ArgsBinders.addAll(obj.").append(field).append(", isFirst, value, v -> ").append(conv).append(");\n");
+            } else {
+                sb.append("            dev.c0ps.diapper.ArgsBinders.checkOnce(name, isFirst);\n");
+                sb.append("            obj.").append(field).append(" = ").append(f.conversion).append(";\n");
+            }
+            sb.append("            break;\n");
+        }
+        sb.append("        default:\n");
+        sb.append("            throw new IllegalArgumentException(name);\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+
+        try (Writer w = processingEnv.getFiler().createSourceFile(binderName, type).openWriter()) {
+            w.write(sb.toString());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.ERROR, "Cannot generate " + binderName + ": " + e.getMessage(), type);
+        }
+    }
+
+    private static String literal(String s) {
+        return '"' + s.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private static class Field {
+        private final Set<String> names = new LinkedHashSet<>();
+        private boolean isFlag;
+        private boolean isPrimitive;
+        private boolean isList;
+        private String conversion;
+    }
+}
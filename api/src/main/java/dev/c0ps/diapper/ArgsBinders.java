@@ -0,0 +1,134 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper;
+
+import static java.lang.String.format;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Function;
+
+import com.beust.jcommander.ParameterException;
+
+/**
+ * Conversions that are used by generated {@link IArgsBinder} implementations.
+ * Behavior and error messages mirror the default converters of JCommander.
+ */
+public class ArgsBinders {
+
+    public static final String SUFFIX = "_ArgsBinder";
+
+    // no instantiation
+    private ArgsBinders() {}
+
+    /**
+     * @return the fully-qualified name of the generated binder for the (binary)
+     *         class name of an args class, e.g., "a.B$C" becomes "a.B_C_ArgsBinder"
+     */
+    public static String binderName(String binaryName) {
+        return binaryName.replace('$', '_') + SUFFIX;
+    }
+
+    public static void checkOnce(String name, boolean isFirst) {
+        if (!isFirst) {
+            throw new ParameterException(format("Can only specify option %s once.", name));
+        }
+    }
+
+    public static String toString(String name, String value) {
+        return value;
+    }
+
+    public static int toInt(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw conversionError(name, value, "an integer");
+        }
+    }
+
+    public static long toLong(String name, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw conversionError(name, value, "a long");
+        }
+    }
+
+    public static double toDouble(String name, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw conversionError(name, value, "a double");
+        }
+    }
+
+    public static float toFloat(String name, String value) {
+        try {
+            return Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            throw conversionError(name, value, "a float");
+        }
+    }
+
+    public static boolean toBoolean(String name, String value) {
+        if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+            return Boolean.parseBoolean(value);
+        }
+        throw conversionError(name, value, "a boolean");
+    }
+
+    public static File toFile(String name, String value) {
+        return new File(value);
+    }
+
+    public static Path toPath(String name, String value) {
+        return Paths.get(value);
+    }
+
+    public static <T extends Enum<T>> T toEnum(Class<T> type, String name, String value) {
+        try {
+            try {
+                return Enum.valueOf(type, value);
+            } catch (IllegalArgumentException e) {
+                return Enum.valueOf(type, value.toUpperCase());
+            }
+        } catch (RuntimeException e) {
+            throw new ParameterException(format("Invalid value for %s parameter. Allowed values:%s", name, EnumSet.allOf(type)));
+        }
+    }
+
+    /**
+     * Splits comma-separated values and appends them to the list. The list is
+     * replaced, if the option is bound for the first time (i.e., defaults are
+     * discarded).
+     */
+    public static <T> List<T> addAll(List<T> list, boolean isFirst, String value, Function<String, T> conversion) {
+        var result = isFirst || list == null ? new ArrayList<T>() : list;
+        for (var part : value.split(",")) {
+            result.add(conversion.apply(part));
+        }
+        return result;
+    }
+
+    private static ParameterException conversionError(String name, String value, String type) {
+        return new ParameterException(format("\"%s\": couldn't convert \"%s\" to %s", name, value, type));
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper;
+
+import java.util.Map;
+
+/**
+ * Binds parsed options to the fields of an args object without reflection.
+ * Implementations are generated by the {@link ArgsBinderProcessor} for all
+ * args classes that only use simple {@code @Parameter} features.
+ */
+public interface IArgsBinder<T> {
+
+    T create();
+
+    /**
+     * @return all option names of the args class, mapped to the name of the field
+     *         that they are bound to
+     */
+    Map<String, String> fields();
+
+    /**
+     * @return 0 for boolean flags, 1 for options that expect a value
+     */
+    int arity(String name);
+
+    /**
+     * Binds a value to the field that belongs to the option. The value is null for
+     * flags. "isFirst" signals whether the field has been bound before during the
+     * current parse.
+     */
+    void bind(T obj, String name, String value, boolean isFirst);
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper;
+
+/**
+ * Live counters that components can publish, e.g., to monitor a long-running
+ * application via JMX. An instance is always bound in the injector.
+ */
+public interface ICounters {
+
+    /** Adds the delta to the named counter, which starts at 0. */
+    void add(String name, long delta);
+
+    default void increment(String name) {
+        add(name, 1);
+    }
+
+    /** Sets the named counter to the given value, e.g., to publish a gauge. */
+    void set(String name, long value);
+
+    long get(String name);
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper;
+
+import static javax.tools.StandardLocation.CLASS_OUTPUT;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * Writes an index of all {@link InjectorConfig} classes and all instantiable
+ * {@link Runnable} implementations of a compilation unit, which allows the
+ * Runner to skip class path scanning for indexed jars.
+ */
+@SupportedAnnotationTypes("*")
+public class InjectorConfigProcessor extends AbstractProcessor {
+
+    public static final String CONFIG_INDEX = "META-INF/diapper/injector-configs";
+    public static final String RUNNABLE_INDEX = "META-INF/diapper/runnables";
+
+    private final Set<String> configs = new TreeSet<>();
+    private final Set<String> runnables = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            var runnable = runnableType();
+            write(CONFIG_INDEX, configs, InjectorConfigProcessor::isConfig);
+            write(RUNNABLE_INDEX, runnables, t -> isRunnable(t, runnable));
+            return false;
+        }
+        var runnable = runnableType();
+        for (var type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            collect(type, runnable);
+        }
+        return false;
+    }
+
+    private TypeMirror runnableType() {
+        return processingEnv.getElementUtils().getTypeElement(Runnable.class.getName()).asType();
+    }
+
+    private void collect(TypeElement type, TypeMirror runnable) {
+        var name = processingEnv.getElementUtils().getBinaryName(type).toString();
+        if (isConfig(type)) {
+            configs.add(name);
+        }
+        if (isRunnable(type, runnable)) {
+            runnables.add(name);
+        }
+        for (var inner : ElementFilter.typesIn(type.getEnclosedElements())) {
+            collect(inner, runnable);
+        }
+    }
+
+    private static boolean isConfig(TypeElement type) {
+        return type.getKind() == ElementKind.CLASS && type.getAnnotation(InjectorConfig.class) != null;
+    }
+
+    private boolean isRunnable(TypeElement type, TypeMirror runnable) {
+        var types = processingEnv.getTypeUtils();
+        return type.getKind() == ElementKind.CLASS && isInstantiable(type) && types.isAssignable(types.erasure(type.asType()), runnable);
+    }
+
+    private static boolean isInstantiable(TypeElement type) {
+        var mods = type.getModifiers();
+        if (!mods.contains(Modifier.PUBLIC) || mods.contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        return type.getNestingKind() == NestingKind.TOP_LEVEL || mods.contains(Modifier.STATIC);
+    }
+
+    private void write(String path, Set<String> names, Predicate<TypeElement> isIndexed) {
+        // merge with previous index to support incremental compilation
+        names.addAll(readExisting(path, isIndexed));
+        try {
+            var out = processingEnv.getFiler().createResource(CLASS_OUTPUT, "", path).openOutputStream();
+            writeLines(new OutputStreamWriter(out, StandardCharsets.UTF_8), names);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.ERROR, "Cannot write " + path + ": " + e.getMessage());
+        }
+    }
+
+    private static void writeLines(Writer w, Set<String> names) throws IOException {
+        try (w) {
+            for (var name : names) {
+                w.write(name);
+                w.write('\n');
+            }
+        }
+    }
+
+    private Set<String> readExisting(String path, Predicate<TypeElement> isIndexed) {
+        var names = new TreeSet<String>();
+        try (var in = processingEnv.getFiler().getResource(CLASS_OUTPUT, "", path).openInputStream()) {
+            var r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = r.readLine()) != null) {
+                var name = line.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                // drop entries of types that have been removed or changed in the meantime
+                var type = processingEnv.getElementUtils().getTypeElement(name.replace('$', '.'));
+                if (type != null && isIndexed.test(type)) {
+                    names.add(name);
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // no previous index
+        }
+        return names;
+    }
+}
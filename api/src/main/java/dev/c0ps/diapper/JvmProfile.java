@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the VM settings that a 'Runnable' should be started with. When
+ * started with "--applyJvmProfile", the 'Runner' restarts the application in a
+ * child VM, if the current VM does not match the profile.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface JvmProfile {
+
+    /** Max. heap size in percent of the available (container) memory, 0 keeps the default. */
+    double maxRamPercentage() default 0;
+
+    Gc gc() default Gc.DEFAULT;
+
+    /** Path of a CDS archive, e.g., created with "--cdsTrain". */
+    String cdsArchive() default "";
+
+    /** Highest tier of the JIT compiler (e.g., 1 for short jobs), 0 keeps the default. */
+    int tieredStopAtLevel() default 0;
+
+    /** Additional VM arguments. */
+    String[] jvmArgs() default {};
+
+    public enum Gc {
+        DEFAULT(null),
+        SERIAL("-XX:+UseSerialGC"),
+        PARALLEL("-XX:+UseParallelGC"),
+        G1("-XX:+UseG1GC"),
+        Z("-XX:+UseZGC"),
+        SHENANDOAH("-XX:+UseShenandoahGC");
+
+        public final String flag;
+
+        Gc(String flag) {
+            this.flag = flag;
+        }
+    }
+}
@@ -15,6 +15,8 @@
  */
 package dev.c0ps.diapper;
 
+import java.io.File;
+
 import com.beust.jcommander.Parameter;
 
 public class RunnerArgs {
@@ -24,4 +26,94 @@ public class RunnerArgs {
 
     @Parameter(names = "--logLevel", arity = 1, description = "Desired log level.")
     public LogLevel logLevel = LogLevel.INFO;
+
+    @Parameter(names = "--scanCacheDir", arity = 1, description = "Directory in which class path scan results are cached across runs.")
+    public File scanCacheDir;
+
+    @Parameter(names = "--scanThreads", arity = 1, description = "Number of threads that are used for class path scanning.")
+    public int scanThreads = Runtime.getRuntime().availableProcessors();
+
+    @Parameter(names = "--startupThreads", arity = 1, description = "Number of threads that are used to load the injector configs and the 'Runnable' (1 loads them sequentially).")
+    public int startupThreads = 1;
+
+    @Parameter(names = "--startupBudgetMs", arity = 1, description = "Warn about the slowest startup phases, if the startup takes longer than this (0 disables the warning).")
+    public long startupBudgetMs;
+
+    @Parameter(names = "--cdsTrain", arity = 1, description = "Create a (dynamic) CDS archive at the given path by starting the application without running the 'Runnable'.")
+    public File cdsTrain;
+
+    @Parameter(names = "--jfr", arity = 1, description = "Record the application with the JDK Flight Recorder and write the recording to the given file.")
+    public File jfr;
+
+    @Parameter(names = "--trace", arity = 1, description = "Write a trace of the startup and all provisions in the Chrome trace-event format to the given file.")
+    public File trace;
+
+    @Parameter(names = "--profileProvisions", description = "Count and time the provisions of every binding and report the most expensive ones after the run.")
+    public boolean profileProvisions;
+
+    @Parameter(names = "--profileTop", arity = 1, description = "Number of bindings in the provision report.")
+    public int profileTop = 10;
+
+    @Parameter(names = "--profileCountThreshold", arity = 1, description = "Warn about unscoped bindings that are provisioned at least this often.")
+    public long profileCountThreshold = 1000;
+
+    @Parameter(names = "--profileSlowMs", arity = 1, description = "Warn about unscoped bindings whose provision takes at least this long.")
+    public long profileSlowMs = 100;
+
+    @Parameter(names = "--classLoadReport", description = "Report how many classes have been loaded per startup phase and from which jar.")
+    public boolean classLoadReport;
+
+    @Parameter(names = "--sampleStacks", arity = 1, description = "Sample the stacks of all running threads during the run and write them in the collapsed-stack format to the given file.")
+    public File sampleStacks;
+
+    @Parameter(names = "--sampleIntervalMs", arity = 1, description = "Interval in which stacks are sampled.")
+    public int sampleIntervalMs = 10;
+
+    @Parameter(names = "--memoryThreshold", arity = 1, description = "Log a class histogram when the old generation is still above this fraction of its maximum after a GC (0 disables the watchdog).")
+    public double memoryThreshold;
+
+    @Parameter(names = "--heapDumpDir", arity = 1, description = "Directory in which a heap dump is written the first time the memory threshold is exceeded.")
+    public File heapDumpDir;
+
+    @Parameter(names = "--resourceUsage", description = "Log the resources that have been used by the run (CPU, allocations, GC, peak heap and threads).")
+    public boolean resourceUsage;
+
+    @Parameter(names = "--resourceReport", arity = 1, description = "Log the resources that have been used by the run and write them as JSON to the given file.")
+    public File resourceReport;
+
+    @Parameter(names = "--deadline", arity = 1, description = "Log thread dumps when the 'Runnable' runs longer than this many ms (0 disables the deadline).")
+    public long deadline;
+
+    @Parameter(names = "--deadlineDumpIntervalMs", arity = 1, description = "Interval in which thread dumps are repeated after the deadline (0 dumps only once).")
+    public long deadlineDumpIntervalMs = 60_000;
+
+    @Parameter(names = "--deadlineExitCode", arity = 1, description = "Terminate the VM with this exit code when the deadline is exceeded.")
+    public Integer deadlineExitCode;
+
+    @Parameter(names = "--jmx", description = "Register an MBean that exposes the state of the 'Runner'.")
+    public boolean jmx;
+
+    @Parameter(names = "--metricsPort", arity = 1, description = "Local port on which metrics are served in the Prometheus text format (0 picks a free port).")
+    public Integer metricsPort;
+
+    @Parameter(names = "--metricsFile", arity = 1, description = "File to which metrics snapshots are appended as JSON lines.")
+    public File metricsFile;
+
+    @Parameter(names = "--metricsIntervalMs", arity = 1, description = "Interval in which metrics snapshots are written to the metrics file.")
+    public long metricsIntervalMs = 10_000;
+
+    @Parameter(names = "--applyJvmProfile", description = "Restart the application with the @JvmProfile of the 'Runnable', if the current VM does not match.")
+    public boolean applyJvmProfile;
+
+    @Parameter(names = "--lazyArgs", description = "Defer the parsing of argument objects until their injector config is used.")
+    public boolean lazyArgs;
+
+    @Parameter(names = "--recordModules", description = "Configure all injector configs in parallel before the injector is created.")
+    public boolean recordModules;
+
+    @Parameter(names = "--pruneModules", description = "Only use the injector configs that are needed to provision the 'Runnable'.")
+    public boolean pruneModules;
+
+    @Parameter(names = "--explainModules", description = "Report which injector configs are needed to provision the 'Runnable'.")
+    public boolean explainModules;
 }
\ No newline at end of file
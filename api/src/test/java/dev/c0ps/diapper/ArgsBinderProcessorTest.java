@@ -0,0 +1,172 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.beust.jcommander.ParameterException;
+
+public class ArgsBinderProcessorTest {
+
+    private static final String PARAM = "@com.beust.jcommander.Parameter";
+
+    @TempDir
+    private File tmp;
+
+    private File src;
+    private File out;
+
+    @BeforeEach
+    public void setup() {
+        src = new File(tmp, "src");
+        out = new File(tmp, "out");
+        src.mkdirs();
+        out.mkdirs();
+    }
+
+    @Test
+    public void generatesBinder() throws Exception {
+        compile("a.A", "public class A { " + PARAM + "(names = {\"-x\", \"--x\"}, description = \"...\") public String x; }");
+        var binder = binder("a.A_ArgsBinder");
+        assertEquals(Map.of("-x", "x", "--x", "x"), binder.fields());
+        assertEquals(1, binder.arity("-x"));
+        var obj = binder.create();
+        binder.bind(obj, "--x", "v", true);
+        assertEquals("v", get(obj, "x"));
+    }
+
+    @Test
+    public void generatesBinderForNestedClasses() throws Exception {
+        compile("a.A", "public class A { public static class B { " + PARAM + "(names = \"-x\") int x; } }");
+        var binder = binder("a.A_B_ArgsBinder");
+        var obj = binder.create();
+        binder.bind(obj, "-x", "3", true);
+        assertEquals(3, get(obj, "x"));
+    }
+
+    @Test
+    public void flagsAreToggled() throws Exception {
+        compile("a.A", "public class A { " + PARAM + "(names = \"-b\") public boolean b; " + PARAM + "(names = \"-c\") public Boolean c; }");
+        var binder = binder("a.A_ArgsBinder");
+        assertEquals(0, binder.arity("-b"));
+        assertEquals(0, binder.arity("-c"));
+        var obj = binder.create();
+        binder.bind(obj, "-b", null, true);
+        binder.bind(obj, "-c", null, true);
+        assertEquals(true, get(obj, "b"));
+        assertEquals(true, get(obj, "c"));
+        binder.bind(obj, "-b", null, false);
+        assertEquals(false, get(obj, "b"));
+    }
+
+    @Test
+    public void scalarsCanOnlyBeBoundOnce() throws Exception {
+        compile("a.A", "public class A { " + PARAM + "(names = \"-x\") public int x; }");
+        var binder = binder("a.A_ArgsBinder");
+        var obj = binder.create();
+        binder.bind(obj, "-x", "1", true);
+        var e = assertThrows(ParameterException.class, () -> {
+            binder.bind(obj, "-x", "2", false);
+        });
+        assertEquals("Can only specify option -x once.", e.getMessage());
+    }
+
+    @Test
+    public void listsReplaceDefaultsAndAppend() throws Exception {
+        compile("a.A", "public class A { " + PARAM + "(names = \"-l\") public java.util.List<Integer> l = java.util.List.of(0); }");
+        var binder = binder("a.A_ArgsBinder");
+        var obj = binder.create();
+        binder.bind(obj, "-l", "1,2", true);
+        binder.bind(obj, "-l", "3", false);
+        assertEquals(List.of(1, 2, 3), get(obj, "l"));
+    }
+
+    @Test
+    public void unsupportedFeaturesAreSkipped() throws IOException {
+        compile("a.Private", "public class Private { " + PARAM + "(names = \"-x\") private String x; }");
+        compile("a.Final", "public class Final { " + PARAM + "(names = \"-x\") public final String x = null; }");
+        compile("a.Required", "public class Required { " + PARAM + "(names = \"-x\", required = true) public String x; }");
+        compile("a.Arity", "public class Arity { " + PARAM + "(names = \"-x\", arity = 2) public java.util.List<String> x; }");
+        compile("a.Main", "public class Main { " + PARAM + " public java.util.List<String> x; }");
+        compile("a.Type", "public class Type { " + PARAM + "(names = \"-x\") public short x; }");
+        compile("a.Set", "public class Set { " + PARAM + "(names = \"-x\") public java.util.Set<String> x; }");
+        compile("a.NoInit", "public class NoInit { public NoInit(int i) {} " + PARAM + "(names = \"-x\") public String x; }");
+        compile("a.Abstract", "public abstract class Abstract { " + PARAM + "(names = \"-x\") public String x; }");
+        compile("a.Inner", "public class Inner { public class I { " + PARAM + "(names = \"-x\") public String x; } }");
+        compile("a.Sub", "public class Sub extends Private { " + PARAM + "(names = \"-y\") public String y; }");
+        compile("a.Delegate", "public class Delegate { @com.beust.jcommander.ParametersDelegate public Object o = new Object(); " //
+                + PARAM + "(names = \"-y\") public String y; }");
+        var names = List.of(out.toPath().resolve("a").toFile().list());
+        assertTrue(names.stream().noneMatch(n -> n.contains(ArgsBinders.SUFFIX)), names.toString());
+    }
+
+    @Test
+    public void classLevelParametersAreSkipped() throws IOException {
+        compile("a.Separators", "@com.beust.jcommander.Parameters(separators = \"=\") public class Separators { " + PARAM + "(names = \"-x\") public String x; }");
+        compile("a.SubOfSeparators", "public class SubOfSeparators extends Separators { " + PARAM + "(names = \"-y\") public String y; }");
+        assertFalse(new File(out, "a/Separators_ArgsBinder.class").exists());
+        assertFalse(new File(out, "a/SubOfSeparators_ArgsBinder.class").exists());
+    }
+
+    @Test
+    public void classesWithoutParametersAreIgnored() throws IOException {
+        compile("a.A", "public class A { public String x; }");
+        assertFalse(new File(out, "a/A_ArgsBinder.class").exists());
+    }
+
+    private void compile(String name, String body) throws IOException {
+        var idx = name.lastIndexOf('.');
+        var code = String.format("package %s; %s", name.substring(0, idx), body);
+        Files.writeString(new File(src, name.substring(idx + 1) + ".java").toPath(), code);
+
+        var javac = ToolProvider.getSystemJavaCompiler();
+        try (var fm = javac.getStandardFileManager(null, null, null)) {
+            var units = fm.getJavaFileObjects(src.listFiles());
+            var opts = List.of("-d", out.getAbsolutePath(), "-cp", System.getProperty("java.class.path") + File.pathSeparator + out);
+            var task = javac.getTask(null, fm, null, opts, null, units);
+            task.setProcessors(List.of(new ArgsBinderProcessor()));
+            assertTrue(task.call());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private IArgsBinder<Object> binder(String name) throws Exception {
+        var cl = new URLClassLoader(new java.net.URL[] { out.toURI().toURL() }, getClass().getClassLoader());
+        return (IArgsBinder<Object>) cl.loadClass(name).getConstructor().newInstance();
+    }
+
+    private static Object get(Object obj, String field) throws Exception {
+        var f = obj.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        return f.get(obj);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.beust.jcommander.ParameterException;
+
+public class ArgsBindersTest {
+
+    @Test
+    public void binderName() {
+        assertEquals("a.B_ArgsBinder", ArgsBinders.binderName("a.B"));
+        assertEquals("a.B_C_ArgsBinder", ArgsBinders.binderName("a.B$C"));
+    }
+
+    @Test
+    public void conversions() {
+        assertEquals("x", ArgsBinders.toString("-x", "x"));
+        assertEquals(-3, ArgsBinders.toInt("-x", "-3"));
+        assertEquals(4L, ArgsBinders.toLong("-x", "4"));
+        assertEquals(1.5, ArgsBinders.toDouble("-x", "1.5"));
+        assertEquals(2.5f, ArgsBinders.toFloat("-x", "2.5"));
+        assertEquals(true, ArgsBinders.toBoolean("-x", "TRUE"));
+        assertEquals(new File("a/b"), ArgsBinders.toFile("-x", "a/b"));
+        assertEquals(Paths.get("a/b"), ArgsBinders.toPath("-x", "a/b"));
+        assertEquals(LogLevel.WARN, ArgsBinders.toEnum(LogLevel.class, "-x", "warn"));
+    }
+
+    @Test
+    public void conversionErrors() {
+        assertError("\"-x\": couldn't convert \"y\" to an integer", () -> ArgsBinders.toInt("-x", "y"));
+        assertError("\"-x\": couldn't convert \"y\" to a long", () -> ArgsBinders.toLong("-x", "y"));
+        assertError("\"-x\": couldn't convert \"y\" to a double", () -> ArgsBinders.toDouble("-x", "y"));
+        assertError("\"-x\": couldn't convert \"y\" to a float", () -> ArgsBinders.toFloat("-x", "y"));
+        assertError("\"-x\": couldn't convert \"y\" to a boolean", () -> ArgsBinders.toBoolean("-x", "y"));
+        assertError("Invalid value for -x parameter. Allowed values:[ALL, DEBUG, INFO, WARN, ERROR, OFF]", //
+                () -> ArgsBinders.toEnum(LogLevel.class, "-x", "y"));
+    }
+
+    @Test
+    public void checkOnce() {
+        ArgsBinders.checkOnce("-x", true);
+        assertError("Can only specify option -x once.", () -> ArgsBinders.checkOnce("-x", false));
+    }
+
+    @Test
+    public void addAll() {
+        var defaults = new ArrayList<>(List.of("d"));
+        var l = ArgsBinders.addAll(defaults, true, "a,b", v -> v);
+        assertEquals(List.of("a", "b"), l);
+        assertEquals(List.of("a", "b", "c"), ArgsBinders.addAll(l, false, "c", v -> v));
+        assertEquals(List.of("d"), defaults);
+    }
+
+    private static void assertError(String msg, Runnable r) {
+        var e = assertThrows(ParameterException.class, r::run);
+        assertEquals(msg, e.getMessage());
+    }
+}
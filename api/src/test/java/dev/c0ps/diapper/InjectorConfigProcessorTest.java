@@ -0,0 +1,140 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper;
+
+import static dev.c0ps.diapper.InjectorConfigProcessor.CONFIG_INDEX;
+import static dev.c0ps.diapper.InjectorConfigProcessor.RUNNABLE_INDEX;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class InjectorConfigProcessorTest {
+
+    @TempDir
+    private File tmp;
+
+    private File src;
+    private File out;
+
+    @BeforeEach
+    public void setup() {
+        src = new File(tmp, "src");
+        out = new File(tmp, "out");
+        src.mkdirs();
+        out.mkdirs();
+    }
+
+    @Test
+    public void indexesConfigs() throws IOException {
+        compile("a.C1", "@dev.c0ps.diapper.InjectorConfig public class C1 extends dev.c0ps.diapper.InjectorConfigBase {}");
+        compile("b.C2", "@dev.c0ps.diapper.InjectorConfig public class C2 extends dev.c0ps.diapper.InjectorConfigBase {}");
+        assertEquals(List.of("a.C1", "b.C2"), read(CONFIG_INDEX));
+    }
+
+    @Test
+    public void indexesNestedConfigs() throws IOException {
+        compile("a.C", "public class C { @dev.c0ps.diapper.InjectorConfig public static class N {} }");
+        assertEquals(List.of("a.C$N"), read(CONFIG_INDEX));
+    }
+
+    @Test
+    public void indexesRunnables() throws IOException {
+        compile("a.R", "public class R implements Runnable { public void run() {} }");
+        compile("a.T", "public class T extends Thread {}");
+        assertEquals(List.of("a.R", "a.T"), read(RUNNABLE_INDEX));
+    }
+
+    @Test
+    public void ignoresNonInstantiableRunnables() throws IOException {
+        compile("a.R", "public abstract class R implements Runnable {" //
+                + " public class Inner implements Runnable { public void run() {} }" //
+                + " static class Hidden implements Runnable { public void run() {} } }");
+        assertEquals(List.of(), read(RUNNABLE_INDEX));
+    }
+
+    @Test
+    public void indexIsAlwaysWritten() throws IOException {
+        compile("a.X", "public class X {}");
+        assertEquals(List.of(), read(CONFIG_INDEX));
+        assertEquals(List.of(), read(RUNNABLE_INDEX));
+    }
+
+    @Test
+    public void incrementalCompilationMergesIndex() throws IOException {
+        compile("a.C1", "@dev.c0ps.diapper.InjectorConfig public class C1 {}");
+        compileOnly("a.C2", "@dev.c0ps.diapper.InjectorConfig public class C2 {}");
+        assertEquals(List.of("a.C1", "a.C2"), read(CONFIG_INDEX));
+    }
+
+    @Test
+    public void incrementalCompilationDropsEntriesThatAreNoLongerAnnotated() throws IOException {
+        compile("a.C1", "@dev.c0ps.diapper.InjectorConfig public class C1 {}");
+        compile("a.C2", "@dev.c0ps.diapper.InjectorConfig public class C2 {}");
+        // C1 is only available as a class file
+        compileOnly("a.C2", "public class C2 {}");
+        assertEquals(List.of("a.C1"), read(CONFIG_INDEX));
+    }
+
+    @Test
+    public void incrementalCompilationDropsEntriesThatAreNoLongerRunnable() throws IOException {
+        compile("a.R", "public class R implements Runnable { public void run() {} }");
+        compileOnly("a.R", "public class R {}");
+        assertEquals(List.of(), read(RUNNABLE_INDEX));
+    }
+
+    private void compile(String name, String body) throws IOException {
+        write(name, body);
+        runCompiler();
+    }
+
+    private void compileOnly(String name, String body) throws IOException {
+        for (var f : src.listFiles()) {
+            Files.delete(f.toPath());
+        }
+        compile(name, body);
+    }
+
+    private void write(String name, String body) throws IOException {
+        var idx = name.lastIndexOf('.');
+        var code = String.format("package %s; %s", name.substring(0, idx), body);
+        Files.writeString(new File(src, name.substring(idx + 1) + ".java").toPath(), code);
+    }
+
+    private void runCompiler() throws IOException {
+        var javac = ToolProvider.getSystemJavaCompiler();
+        try (var fm = javac.getStandardFileManager(null, null, null)) {
+            var units = fm.getJavaFileObjects(src.listFiles());
+            var opts = List.of("-d", out.getAbsolutePath(), "-cp", System.getProperty("java.class.path") + File.pathSeparator + out);
+            var task = javac.getTask(null, fm, null, opts, null, units);
+            task.setProcessors(List.of(new InjectorConfigProcessor()));
+            assertTrue(task.call());
+        }
+    }
+
+    private List<String> read(String path) throws IOException {
+        return Files.readAllLines(new File(out, path).toPath());
+    }
+}
@@ -16,6 +16,7 @@
 package dev.c0ps.diapper;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 import org.junit.jupiter.api.Test;
@@ -27,5 +28,35 @@ public class RunnerArgsTest {
         var sut = new RunnerArgs();
         assertNull(sut.run);
         assertEquals(LogLevel.INFO, sut.logLevel);
+        assertNull(sut.scanCacheDir);
+        assertEquals(Runtime.getRuntime().availableProcessors(), sut.scanThreads);
+        assertEquals(1, sut.startupThreads);
+        assertEquals(0, sut.startupBudgetMs);
+        assertNull(sut.cdsTrain);
+        assertNull(sut.jfr);
+        assertNull(sut.trace);
+        assertFalse(sut.profileProvisions);
+        assertEquals(10, sut.profileTop);
+        assertEquals(1000, sut.profileCountThreshold);
+        assertEquals(100, sut.profileSlowMs);
+        assertFalse(sut.classLoadReport);
+        assertNull(sut.sampleStacks);
+        assertEquals(10, sut.sampleIntervalMs);
+        assertEquals(0, sut.memoryThreshold);
+        assertNull(sut.heapDumpDir);
+        assertFalse(sut.resourceUsage);
+        assertNull(sut.resourceReport);
+        assertEquals(0, sut.deadline);
+        assertEquals(60_000, sut.deadlineDumpIntervalMs);
+        assertNull(sut.deadlineExitCode);
+        assertFalse(sut.jmx);
+        assertNull(sut.metricsPort);
+        assertNull(sut.metricsFile);
+        assertEquals(10_000, sut.metricsIntervalMs);
+        assertFalse(sut.applyJvmProfile);
+        assertFalse(sut.lazyArgs);
+        assertFalse(sut.recordModules);
+        assertFalse(sut.pruneModules);
+        assertFalse(sut.explainModules);
     }
 }
\ No newline at end of file
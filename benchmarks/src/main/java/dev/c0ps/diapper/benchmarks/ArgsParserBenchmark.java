@@ -0,0 +1,82 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.c0ps.diapper.utils.ArgsParser;
+
+/**
+ * Parses {@link BenchmarkArgs} from large argument sets, either with a
+ * generated binder or with JCommander. The filler arguments are either options
+ * of other args objects, or the same list option repeated. Run with:
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar ArgsParserBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArgsParserBenchmark {
+
+    @Param({ "10", "1000", "10000" })
+    public int numFillers;
+
+    @Param({ "unknown", "repeated" })
+    public String filler;
+
+    @Param({ "true", "false" })
+    public boolean useBinders;
+
+    private String[] rawArgs;
+
+    @Setup
+    public void setup() {
+        var args = new ArrayList<>(List.of("--name", "n", "--count", "3", "--limit", "7", "--dir", "/tmp", "--verbose"));
+        for (var i = 0; i < numFillers; i++) {
+            if ("repeated".equals(filler)) {
+                args.addAll(List.of("--tags", "t" + i));
+            } else {
+                args.addAll(List.of("--other" + i, "v" + i));
+            }
+        }
+        rawArgs = args.toArray(String[]::new);
+    }
+
+    /** Includes the tokenization, which happens once per job. */
+    @Benchmark
+    public BenchmarkArgs parse() {
+        return new ArgsParser(rawArgs, useBinders).parse(BenchmarkArgs.class);
+    }
+}
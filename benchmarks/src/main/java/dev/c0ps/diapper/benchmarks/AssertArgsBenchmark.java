@@ -0,0 +1,90 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.c0ps.diapper.AssertArgs;
+import dev.c0ps.diapper.AssertArgs.ArgsAssertChain;
+import dev.c0ps.diapper.AssertArgsError;
+
+/**
+ * Validates {@link BenchmarkArgs} with a chain of assertions that either all
+ * pass, or that fails and prints the usage through JCommander. The usage is
+ * discarded. Run with:
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar AssertArgsBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssertArgsBenchmark {
+
+    private final BenchmarkArgs args = new BenchmarkArgs();
+    private PrintStream out;
+
+    @Setup
+    public void setup() {
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public ArgsAssertChain<BenchmarkArgs> chain() {
+        return AssertArgs.assertFor(args) //
+                .notNull(a -> a.name, "name") //
+                .that(a -> a.count > 0, "count") //
+                .that(a -> a.limit > a.count, "limit") //
+                .notNullAndNotEmpty(a -> a.name, "name") //
+                .directoryExists(a -> a.dir, "dir");
+    }
+
+    @Benchmark
+    public AssertArgsError failWithUsage() {
+        try {
+            AssertArgs.assertFor(args) //
+                    .notNull(a -> a.name, "name") //
+                    .notNull(a -> a.missing, "missing");
+        } catch (AssertArgsError e) {
+            return e;
+        }
+        throw new IllegalStateException("Assertion should have failed");
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.beust.jcommander.Parameter;
+
+/** Same options as {@link BenchmarkArgs}, but with a custom {@code toString}. */
+public class BenchmarkArgsWithToString {
+
+    @Parameter(names = "--name", arity = 1)
+    public String name = "benchmark";
+
+    @Parameter(names = "--count", arity = 1)
+    public int count = 1;
+
+    @Parameter(names = "--limit", arity = 1)
+    public long limit = 1000;
+
+    @Parameter(names = "--dir", arity = 1)
+    public File dir = new File(".");
+
+    @Parameter(names = "--verbose")
+    public boolean verbose;
+
+    @Parameter(names = "--tags", arity = 1)
+    public List<String> tags = new ArrayList<>();
+
+    /** Unset by default, to violate assertions. */
+    @Parameter(names = "--missing", arity = 1)
+    public String missing;
+
+    @Override
+    public String toString() {
+        return "name=" + name + ", count=" + count + ", limit=" + limit + ", dir=" + dir + ", verbose=" + verbose + ", tags=" + tags + ", missing=" + missing;
+    }
+}
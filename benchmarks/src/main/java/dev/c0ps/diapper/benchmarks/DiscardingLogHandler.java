@@ -0,0 +1,47 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.benchmarks;
+
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * The benchmarked code logs through SLF4J to java.util.logging, which formats
+ * every enabled message, as a production logging backend would. This handler
+ * replaces the console output, so the formatted records are discarded.
+ */
+public class DiscardingLogHandler extends Handler {
+
+    public static void install() {
+        var root = Logger.getLogger("");
+        for (var h : root.getHandlers()) {
+            root.removeHandler(h);
+        }
+        root.addHandler(new DiscardingLogHandler());
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        // discard
+    }
+
+    @Override
+    public void flush() {}
+
+    @Override
+    public void close() {}
+}
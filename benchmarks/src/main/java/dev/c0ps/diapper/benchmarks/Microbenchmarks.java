@@ -0,0 +1,48 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all benchmarks of the APIs that are used once per job, together with the
+ * GC profiler, which adds the allocation rate and the allocated bytes per
+ * operation ("gc.alloc.rate.norm") to the results. Run with:
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar dev.c0ps.diapper.benchmarks.Microbenchmarks
+ * </pre>
+ */
+public class Microbenchmarks {
+
+    private Microbenchmarks() {
+        // do not instantiate
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        var opts = new OptionsBuilder() //
+                .include(ArgsParserBenchmark.class.getName()) //
+                .include(AssertArgsBenchmark.class.getName()) //
+                .include(VmArgsBenchmark.class.getName()) //
+                .include(ReflectionUtilsBenchmark.class.getName()) //
+                .addProfiler(GCProfiler.class) //
+                .build();
+        new Runner(opts).run();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.c0ps.diapper.InjectorConfig;
+import dev.c0ps.diapper.utils.ArgsParser;
+import dev.c0ps.diapper.utils.ReflectionUtils;
+
+/**
+ * Parses an args object the way a config receives it, including the logging
+ * of the parsed values, which falls back to a reflective {@code toString}
+ * without a custom implementation. The log messages are formatted, but
+ * discarded. Run with:
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar ReflectionUtilsBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReflectionUtilsBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean customToString;
+
+    private Class<?> argsType;
+    private ReflectionUtils sut;
+
+    @Setup
+    public void setup() {
+        DiscardingLogHandler.install();
+        argsType = customToString ? BenchmarkArgsWithToString.class : BenchmarkArgs.class;
+        var rawArgs = new String[] { "--name", "n", "--count", "3", "--tags", "a", "--tags", "b" };
+        sut = new ReflectionUtils(InjectorConfig.class, new ArgsParser(rawArgs));
+    }
+
+    @Benchmark
+    public Object parse() {
+        // parsed args are cached per type, so every invocation has to start fresh
+        ReflectionUtils.clearCaches();
+        return sut.parse(argsType);
+    }
+}
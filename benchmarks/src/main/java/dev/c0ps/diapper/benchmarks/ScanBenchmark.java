@@ -0,0 +1,88 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.benchmarks;
+
+import static org.reflections.scanners.Scanners.SubTypes;
+import static org.reflections.scanners.Scanners.TypesAnnotated;
+
+import java.net.URL;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reflections.Reflections;
+import org.reflections.util.ConfigurationBuilder;
+import org.reflections.util.FilterBuilder;
+
+import dev.c0ps.diapper.InjectorConfig;
+import dev.c0ps.diapper.utils.AnnotationScanner;
+
+/**
+ * Compares the class path scanning of the runner with the Reflections library,
+ * which has been used before. Run with:
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar ScanBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScanBenchmark {
+
+    @Param({ "dev.c0ps.diapper", "com.google.inject", "com.beust.jcommander" })
+    public String pkg;
+
+    private Set<URL> roots;
+
+    @Setup
+    public void setup() {
+        DiscardingLogHandler.install();
+        roots = AnnotationScanner.findRoots(pkg, ScanBenchmark.class.getClassLoader());
+    }
+
+    @Benchmark
+    public Set<String> reflections() {
+        var conf = new ConfigurationBuilder() //
+                .setUrls(roots) //
+                .filterInputsBy(new FilterBuilder().includePackage(pkg));
+        return new Reflections(conf).get(SubTypes.of(TypesAnnotated.with(InjectorConfig.class)));
+    }
+
+    @Benchmark
+    public Set<String> annotationScanner() {
+        var scanner = new AnnotationScanner(InjectorConfig.class);
+        var names = new TreeSet<String>();
+        for (var root : roots) {
+            names.addAll(scanner.scan(root, Set.of(pkg)));
+        }
+        return names;
+    }
+}
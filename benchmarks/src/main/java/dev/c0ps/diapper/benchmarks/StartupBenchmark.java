@@ -0,0 +1,220 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.benchmarks;
+
+import static dev.c0ps.diapper.benchmarks.SyntheticClasspath.BASE_PKG;
+import static dev.c0ps.diapper.benchmarks.SyntheticClasspath.RUNNABLE;
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+import dev.c0ps.diapper.IInjectorConfig;
+import dev.c0ps.diapper.InjectorConfig;
+import dev.c0ps.diapper.utils.ArgsParser;
+import dev.c0ps.diapper.utils.ReflectionUtils;
+
+/**
+ * Measures the phases of the startup of the runner on a
+ * {@link SyntheticClasspath} of increasing size. Every iteration uses a new
+ * class loader, so all classes are cold, but the JIT is warm. The preceding
+ * phases are prepared in the setup of the iteration. Run with:
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar StartupBenchmark
+ * </pre>
+ *
+ * Single scales can be selected with parameters, e.g.,
+ * {@code -p configs=1000 -p indexed=false}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class StartupBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Classpath {
+
+        @Param({ "1", "10" })
+        public int packages;
+
+        @Param({ "10", "100", "1000" })
+        public int configs;
+
+        @Param({ "10", "100" })
+        public int argsClasses;
+
+        @Param({ "true", "false" })
+        public boolean indexed;
+
+        private SyntheticClasspath cp;
+        private String[] rawArgs;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            DiscardingLogHandler.install();
+            cp = SyntheticClasspath.compile(packages, configs, argsClasses, indexed);
+            rawArgs = cp.rawArgs();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            cp.delete();
+        }
+    }
+
+    /** A new class loader, in which only the args classes have been loaded. */
+    @State(Scope.Thread)
+    public static class Fresh {
+
+        private URLClassLoader loader;
+        private List<Class<?>> argsClasses;
+
+        @Setup(Level.Iteration)
+        public void setup(Classpath cp) throws ClassNotFoundException {
+            loader = cp.cp.newClassLoader();
+            argsClasses = new ArrayList<>();
+            for (var name : cp.cp.argsClasses()) {
+                argsClasses.add(Class.forName(name, false, loader));
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            ReflectionUtils.clearCaches();
+            loader.close();
+        }
+    }
+
+    /** A new class loader, from which all configs have been loaded. */
+    @State(Scope.Thread)
+    public static class Loaded {
+
+        private URLClassLoader loader;
+        private Set<IInjectorConfig> modules;
+
+        @Setup(Level.Iteration)
+        public void setup(Classpath cp) {
+            loader = cp.cp.newClassLoader();
+            modules = loadModules(cp, loader);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            ReflectionUtils.clearCaches();
+            loader.close();
+        }
+    }
+
+    /** A new class loader, for which the injector has been created. */
+    @State(Scope.Thread)
+    public static class Created {
+
+        private URLClassLoader loader;
+        private Injector injector;
+        private Class<?> runnable;
+
+        @Setup(Level.Iteration)
+        public void setup(Classpath cp) throws ClassNotFoundException {
+            loader = cp.cp.newClassLoader();
+            injector = withLoader(loader, () -> Guice.createInjector(loadModules(cp, loader)));
+            runnable = Class.forName(RUNNABLE, false, loader);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            ReflectionUtils.clearCaches();
+            loader.close();
+        }
+    }
+
+    @Benchmark
+    public List<Object> parseArgs(Classpath cp, Fresh f) {
+        var parser = new ArgsParser(cp.rawArgs);
+        var parsed = new ArrayList<Object>();
+        for (var c : f.argsClasses) {
+            parsed.add(parser.parse(c));
+        }
+        return parsed;
+    }
+
+    @Benchmark
+    public Set<IInjectorConfig> loadModules(Classpath cp, Fresh f) {
+        return loadModules(cp, f.loader);
+    }
+
+    @Benchmark
+    public Injector createInjector(Loaded l) {
+        return withLoader(l.loader, () -> Guice.createInjector(l.modules));
+    }
+
+    @Benchmark
+    public Object createRunnable(Created c) {
+        return withLoader(c.loader, () -> c.injector.getInstance(c.runnable));
+    }
+
+    /** All phases in sequence, as they are run by the runner. */
+    @Benchmark
+    public Object startup(Classpath cp, Fresh f) throws ClassNotFoundException {
+        var runnable = Class.forName(RUNNABLE, false, f.loader);
+        return withLoader(f.loader, () -> Guice.createInjector(loadModules(cp, f.loader)).getInstance(runnable));
+    }
+
+    private static Set<IInjectorConfig> loadModules(Classpath cp, ClassLoader loader) {
+        var modules = withLoader(loader, () -> new ReflectionUtils(InjectorConfig.class, new ArgsParser(cp.rawArgs)).loadModules(BASE_PKG));
+        if (modules.size() != cp.configs) {
+            // failing configs are only logged by the runner
+            throw new IllegalStateException(format("Expected %d configs, but loaded %d", cp.configs, modules.size()));
+        }
+        return modules;
+    }
+
+    /** The runner finds configs through the context class loader. */
+    private static <T> T withLoader(ClassLoader loader, Supplier<T> s) {
+        var t = Thread.currentThread();
+        var before = t.getContextClassLoader();
+        t.setContextClassLoader(loader);
+        try {
+            return s.get();
+        } finally {
+            t.setContextClassLoader(before);
+        }
+    }
+}
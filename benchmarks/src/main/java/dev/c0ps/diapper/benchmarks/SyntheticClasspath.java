@@ -0,0 +1,206 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.benchmarks;
+
+import static java.lang.String.format;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import dev.c0ps.diapper.ArgsBinderProcessor;
+import dev.c0ps.diapper.InjectorConfigProcessor;
+
+/**
+ * Generates and compiles an application with N packages, M
+ * {@code @InjectorConfig} classes and K args classes. Every config provides one
+ * service, which depends on two other services, so the runnable
+ * ({@link #RUNNABLE}) transitively requires all configs. Configs and args
+ * classes are distributed round-robin across the packages and every config
+ * receives one args object.
+ */
+public class SyntheticClasspath {
+
+    public static final String BASE_PKG = "synthetic";
+    public static final String RUNNABLE = BASE_PKG + ".Main";
+
+    private final int numPackages;
+    private final int numConfigs;
+    private final int numArgs;
+    private final Path dir;
+
+    private SyntheticClasspath(int numPackages, int numConfigs, int numArgs, Path dir) {
+        this.numPackages = numPackages;
+        this.numConfigs = numConfigs;
+        this.numArgs = numArgs;
+        this.dir = dir;
+    }
+
+    /**
+     * Compiles the application into a temporary folder. With an index, the
+     * annotation processors of Diapper run as in a regular build, otherwise the
+     * class path has to be scanned on startup.
+     */
+    public static SyntheticClasspath compile(int numPackages, int numConfigs, int numArgs, boolean isIndexed) {
+        if (numPackages < 1 || numConfigs < 1 || numArgs < 1) {
+            throw new IllegalArgumentException("At least one package, config, and args class is required");
+        }
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Generating the synthetic class path requires a JDK");
+        }
+        try {
+            var cp = new SyntheticClasspath(numPackages, numConfigs, numArgs, Files.createTempDirectory("diapper-synthetic"));
+            var options = new ArrayList<String>();
+            options.addAll(List.of("-d", cp.dir.toString(), "-cp", System.getProperty("java.class.path"), "-nowarn"));
+            if (isIndexed) {
+                options.addAll(List.of("-processor", InjectorConfigProcessor.class.getName() + "," + ArgsBinderProcessor.class.getName()));
+            } else {
+                options.add("-proc:none");
+            }
+            var ok = compiler.getTask(null, null, null, options, null, cp.sources()).call();
+            if (!ok) {
+                cp.delete();
+                throw new IllegalStateException("Compiling the synthetic class path has failed");
+            }
+            return cp;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Every loader defines all classes again, which makes it possible to measure
+     * startup phases with cold classes in a warm VM.
+     */
+    public URLClassLoader newClassLoader() {
+        try {
+            return new URLClassLoader(new URL[] { dir.toUri().toURL() }, SyntheticClasspath.class.getClassLoader());
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public List<String> argsClasses() {
+        var names = new ArrayList<String>();
+        for (var k = 0; k < numArgs; k++) {
+            names.add(pkg(k) + ".Args" + k);
+        }
+        return names;
+    }
+
+    /** Sets all options of all args classes. */
+    public String[] rawArgs() {
+        var args = new ArrayList<String>();
+        for (var k = 0; k < numArgs; k++) {
+            args.addAll(List.of("--args" + k + ".name", "n" + k, "--args" + k + ".count", Integer.toString(k), "--args" + k + ".enabled"));
+        }
+        return args.toArray(String[]::new);
+    }
+
+    public void delete() {
+        try (var files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Source> sources() {
+        var sources = new ArrayList<Source>();
+        for (var k = 0; k < numArgs; k++) {
+            sources.add(new Source(pkg(k), "Args" + k, format("" //
+                    + "public class Args%1$d {\n" //
+                    + "    @com.beust.jcommander.Parameter(names = \"--args%1$d.name\", arity = 1)\n" //
+                    + "    public String name = \"a%1$d\";\n" //
+                    + "    @com.beust.jcommander.Parameter(names = \"--args%1$d.count\", arity = 1)\n" //
+                    + "    public int count;\n" //
+                    + "    @com.beust.jcommander.Parameter(names = \"--args%1$d.enabled\")\n" //
+                    + "    public boolean enabled;\n" //
+                    + "}\n", k)));
+        }
+        for (var m = 0; m < numConfigs; m++) {
+            var deps = new ArrayList<String>();
+            for (var d = 2 * m + 1; d <= 2 * m + 2 && d < numConfigs; d++) {
+                deps.add(service(d) + " s" + d);
+            }
+            var args = pkg(m % numArgs) + ".Args" + (m % numArgs);
+            sources.add(new Source(pkg(m), "Service" + m, format("" //
+                    + "public class Service%1$d {\n" //
+                    + "    public final String name;\n" //
+                    + "    public Service%1$d(String name) {\n" //
+                    + "        this.name = name;\n" //
+                    + "    }\n" //
+                    + "}\n", m)));
+            sources.add(new Source(pkg(m), "Config" + m, format("" //
+                    + "@dev.c0ps.diapper.InjectorConfig\n" //
+                    + "public class Config%1$d extends dev.c0ps.diapper.InjectorConfigBase {\n" //
+                    + "    private final %2$s args;\n" //
+                    + "    public Config%1$d(%2$s args) {\n" //
+                    + "        this.args = args;\n" //
+                    + "    }\n" //
+                    + "    @com.google.inject.Provides\n" //
+                    + "    public Service%1$d provideService%1$d(%3$s) {\n" //
+                    + "        return new Service%1$d(args.name);\n" //
+                    + "    }\n" //
+                    + "}\n", m, args, String.join(", ", deps))));
+        }
+        sources.add(new Source(BASE_PKG, "Main", format("" //
+                + "public class Main implements Runnable {\n" //
+                + "    @com.google.inject.Inject\n" //
+                + "    public Main(%s root) {}\n" //
+                + "    @Override\n" //
+                + "    public void run() {}\n" //
+                + "}\n", service(0))));
+        return sources;
+    }
+
+    private String pkg(int i) {
+        return BASE_PKG + ".p" + (i % numPackages);
+    }
+
+    private String service(int m) {
+        return pkg(m) + ".Service" + m;
+    }
+
+    private static class Source extends SimpleJavaFileObject {
+
+        private final String content;
+
+        private Source(String pkg, String name, String body) {
+            super(URI.create("string:///" + pkg.replace('.', '/') + "/" + name + Kind.SOURCE.extension), Kind.SOURCE);
+            this.content = "package " + pkg + ";\n\n" + body;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.c0ps.diapper.VmArgs;
+
+/**
+ * Manipulates long argument arrays with {@link VmArgs}. Run with:
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar VmArgsBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VmArgsBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int length;
+
+    private String[] args;
+
+    @Setup
+    public void setup() {
+        args = new String[length];
+        for (var i = 0; i < length; i++) {
+            args[i] = i % 2 == 0 ? "--option" + i : "value" + i;
+        }
+    }
+
+    @Benchmark
+    public String[] prepend() {
+        return VmArgs.prepend(args, "--run", "a.b.C");
+    }
+
+    @Benchmark
+    public String[] append() {
+        return VmArgs.append(args, "--logLevel", "DEBUG");
+    }
+
+    @Benchmark
+    public String format() {
+        return VmArgs.format(args);
+    }
+}
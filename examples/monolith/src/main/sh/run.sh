@@ -0,0 +1,34 @@
+#!/bin/sh
+#
+# Starts the application jar that is located next to this script.
+#
+# A CDS archive speeds up the start of short-lived applications. Create it once
+# by starting the application with the additional "--cdsTrain" argument, for
+# which this script provides the location of the archive:
+#
+#     sh run.sh --cdsTrain --run ...
+#
+# The archive is picked up automatically in all subsequent starts. It is stored
+# next to this script, unless another location is set in CDS_ARCHIVE. The JVM
+# validates that the archive matches the current class path (i.e., the same
+# jars with the same timestamps), and ignores outdated archives with a warning.
+# Re-train after every build.
+
+DIR="$(cd "$(dirname "$0")" && pwd)"
+JAR="$DIR/${project.build.finalName}.jar"
+ARCHIVE="$DIR/app.jsa"
+if [ -n "$CDS_ARCHIVE" ]; then
+    ARCHIVE="$CDS_ARCHIVE"
+fi
+
+if [ "$1" = "--cdsTrain" ]; then
+    shift
+    exec java $JAVA_OPTS -jar "$JAR" --cdsTrain "$ARCHIVE" "$@"
+fi
+
+CDS=""
+if [ -f "$ARCHIVE" ]; then
+    CDS="-XX:SharedArchiveFile=$ARCHIVE -Xshare:auto"
+fi
+
+exec java $CDS $JAVA_OPTS -jar "$JAR" "$@"
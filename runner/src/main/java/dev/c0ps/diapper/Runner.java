@@ -15,21 +15,62 @@
  */
 package dev.c0ps.diapper;
 
+import static java.lang.String.format;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import org.slf4j.Logger;
 
 import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
 import com.google.inject.ProvisionException;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
 
+import dev.c0ps.diapper.jfr.FlightRecording;
+import dev.c0ps.diapper.jfr.InjectorCreationEvent;
+import dev.c0ps.diapper.jfr.RunEvent;
+import dev.c0ps.diapper.jmx.RunnerMonitor;
+import dev.c0ps.diapper.metrics.MetricsCollector;
+import dev.c0ps.diapper.metrics.MetricsExporter;
+import dev.c0ps.diapper.trace.ProvisionTracer;
+import dev.c0ps.diapper.trace.TraceFile;
 import dev.c0ps.diapper.utils.ArgsParser;
+import dev.c0ps.diapper.utils.ClassLoadReport;
+import dev.c0ps.diapper.utils.Counters;
+import dev.c0ps.diapper.utils.DeadlineWatchdog;
+import dev.c0ps.diapper.utils.JvmProfileFlags;
+import dev.c0ps.diapper.utils.MemoryWatchdog;
+import dev.c0ps.diapper.utils.ModulePruner;
+import dev.c0ps.diapper.utils.ModuleRecorder;
+import dev.c0ps.diapper.utils.ProvisionProfiler;
 import dev.c0ps.diapper.utils.ReflectionUtils;
+import dev.c0ps.diapper.utils.Relauncher;
+import dev.c0ps.diapper.utils.ResourceUsage;
+import dev.c0ps.diapper.utils.ScanCache;
+import dev.c0ps.diapper.utils.StackSampler;
+import dev.c0ps.diapper.utils.StartupTimer;
+import dev.c0ps.diapper.utils.ThreadPools;
 
 public class Runner {
 
     private static final String THIS_PACKAGE = RunnerConfig.class.getPackageName();
+    private static final String CDS_DUMP = "-XX:ArchiveClassesAtExit=";
+    private static final String RELAUNCHED = "diapper.relaunched";
+    private static final String CLASS_LOAD_REPORT = "--classLoadReport";
 
     private final String[] basePkgs;
     private final ILogSettings logSettings;
@@ -45,29 +86,122 @@ public class Runner {
 
     public void run(String[] rawArgs) {
         try {
+            // started before parsing, so the class loads of all phases are recorded
+            var classLoads = Arrays.asList(rawArgs).contains(CLASS_LOAD_REPORT) ? ClassLoadReport.start() : null;
+
             // setup logging
+            var timer = new StartupTimer();
             var argsParser = new ArgsParser(rawArgs);
-            var args = argsParser.parse(RunnerArgs.class);
+            var args = timer.time("parse args", () -> argsParser.parse(RunnerArgs.class));
             AssertArgs.notNull(args, a -> a.run, "no 'Runnable' defined");
-            logSettings.setLogLevel(args.logLevel);
+            AssertArgs.that(args, a -> a.memoryThreshold >= 0 && a.memoryThreshold <= 1, "--memoryThreshold must be within (0, 1], or 0 to disable it");
+            AssertArgs.that(args, a -> a.deadlineDumpIntervalMs >= 0, "--deadlineDumpIntervalMs must not be negative");
+            AssertArgs.that(args, a -> a.sampleIntervalMs > 0, "--sampleIntervalMs must be positive");
+            AssertArgs.that(args, a -> a.metricsIntervalMs > 0, "--metricsIntervalMs must be positive");
+            AssertArgs.that(args, a -> a.profileTop >= 0, "--profileTop must not be negative");
+            timer.time("setup logging", () -> logSettings.setLogLevel(args.logLevel));
             logger().info("Starting '{}' ...", args.run);
             logTime();
             logMaxMemory();
             logArgs(rawArgs);
 
+            if (args.applyJvmProfile && System.getProperty(RELAUNCHED) == null) {
+                var exitCode = applyJvmProfile(args.run, rawArgs);
+                if (exitCode != null) {
+                    System.exit(exitCode);
+                }
+            }
+
+            var isCdsTraining = args.cdsTrain != null;
+            if (isCdsTraining && !Relauncher.hasJvmArg(CDS_DUMP)) {
+                System.exit(trainCds(args.cdsTrain, rawArgs));
+            }
+
+            // closed once the run ends, their outputs are also written when the VM exits through System.exit
+            var closers = new ArrayList<Runnable>();
+            if (args.jfr != null) {
+                closers.add(FlightRecording.start(args.jfr)::stop);
+            }
+            var trace = args.trace != null ? TraceFile.start(args.trace, timer) : null;
+            if (trace != null) {
+                closers.add(trace::close);
+            }
+
             // find classes
             var ru = new ReflectionUtils(InjectorConfig.class, argsParser);
-            var modules = ru.loadModules(THIS_PACKAGE);
-            for (var basePkg : basePkgs) {
-                if (!THIS_PACKAGE.equals(basePkg)) {
-                    modules.addAll(ru.loadModules(basePkg));
+            var scanCache = args.scanCacheDir == null ? null : new ScanCache(args.scanCacheDir, InjectorConfig.class);
+            ru.setScanCache(scanCache);
+            ru.setScanThreads(args.scanThreads);
+            ru.setLazyArgs(args.lazyArgs);
+            ru.setStartupTimer(timer);
+            Class<Runnable> runnableClass;
+            Set<IInjectorConfig> configs;
+            Collection<? extends Module> modules;
+            var pool = args.startupThreads > 1 ? ThreadPools.newPool("diapper-startup", args.startupThreads) : null;
+            try {
+                ru.setStartupExecutor(pool);
+                // load the runnable while the class path is being scanned
+                var preload = pool != null ? pool.submit(() -> timer.time("preload runnable", () -> ru.preloadRunnableClass(args.run))) : null;
+                configs = timer.time("load configs", () -> ru.loadModules(allPackages()));
+                if (scanCache != null) {
+                    scanCache.store();
+                    logScanCache(scanCache);
+                }
+                if (preload != null) {
+                    ThreadPools.await(preload);
+                }
+                // failed lookups terminate the VM, which must happen on the main thread
+                runnableClass = timer.time("find runnable", () -> ru.findRunnableClass(args.run));
+                modules = record(args, configs, runnableClass, pool, timer);
+            } finally {
+                if (pool != null) {
+                    pool.shutdownNow();
                 }
             }
-            var runnableClass = ru.findRunnableClass(args.run);
 
             // setup injector and run requested plugin
-            var injector = Guice.createInjector(modules);
-            injector.getInstance(runnableClass).run();
+            var counters = new Counters();
+            var tracer = trace != null ? new ProvisionTracer(timer) : null;
+            var listeners = tracer != null ? List.<Module>of(tracer) : List.<Module>of();
+            var injector = timer.time("create injector", () -> createInjector(modules, counters, listeners));
+            var runnable = timer.time("create runnable", () -> injector.getInstance(runnableClass));
+            if (tracer != null) {
+                tracer.stop();
+            }
+            timer.report(args.startupBudgetMs);
+            if (classLoads != null) {
+                classLoads.report(timer.spans());
+            }
+            if (args.jmx) {
+                new RunnerMonitor(args, classNames(configs), timer, counters, logSettings).register();
+            }
+            if (args.metricsPort != null || args.metricsFile != null) {
+                var collector = new MetricsCollector(args.run, timer, counters);
+                closers.add(MetricsExporter.start(collector, args.metricsPort, args.metricsFile, args.metricsIntervalMs)::close);
+            }
+            if (isCdsTraining) {
+                // the archive is written when this VM exits
+                logger().info("Startup complete, skipping run of {} to write CDS archive {} ...", runnableClass.getName(), args.cdsTrain);
+                finish(closers);
+                return;
+            }
+            if (args.memoryThreshold > 0) {
+                closers.add(MemoryWatchdog.start(args.memoryThreshold, args.heapDumpDir)::stop);
+            }
+            if (args.sampleStacks != null) {
+                closers.add(0, StackSampler.start(args.sampleStacks, args.sampleIntervalMs)::stop);
+            }
+            var usage = args.resourceUsage || args.resourceReport != null ? ResourceUsage.start() : null;
+            var deadline = args.deadline > 0 ? DeadlineWatchdog.start(args.run, args.deadline, args.deadlineDumpIntervalMs, args.deadlineExitCode) : null;
+            run(runnable, timer);
+            if (deadline != null) {
+                deadline.stop();
+            }
+            if (usage != null) {
+                reportUsage(usage.stop(), args);
+            }
+            reportProvisions(injector);
+            finish(closers);
         } catch (Throwable t) {
             if (isAssertArgsError(t)) {
                 // silent shutdown, warnings were already printed
@@ -81,6 +215,141 @@ public class Runner {
 
     }
 
+    private static Injector createInjector(Collection<? extends Module> modules, ICounters counters, List<Module> listeners) {
+        var all = new ArrayList<Module>(modules);
+        all.add(binder -> binder.bind(ICounters.class).toInstance(counters));
+        all.addAll(listeners);
+        var event = new InjectorCreationEvent();
+        event.begin();
+        try {
+            return Guice.createInjector(all);
+        } finally {
+            event.modules = modules.size();
+            event.commit();
+        }
+    }
+
+    private static List<String> classNames(Set<IInjectorConfig> configs) {
+        var names = new ArrayList<String>();
+        for (var c : configs) {
+            names.add(c.getClass().getName());
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private static void run(Runnable runnable, StartupTimer timer) {
+        var event = new RunEvent();
+        event.begin();
+        var start = System.nanoTime();
+        try {
+            runnable.run();
+        } finally {
+            event.runnable = runnable.getClass().getName();
+            event.commit();
+            timer.span("run " + event.runnable, "run", start, Map.of());
+        }
+    }
+
+    private static void reportUsage(ResourceUsage.Summary usage, RunnerArgs args) {
+        ResourceUsage.log(usage);
+        if (args.resourceReport != null) {
+            ResourceUsage.write(usage, args.run, args.resourceReport);
+        }
+    }
+
+    private static void reportProvisions(Injector injector) {
+        // only bound when profiling has been requested
+        if (injector.getExistingBinding(Key.get(ProvisionProfiler.class)) != null) {
+            injector.getInstance(ProvisionProfiler.class).report();
+        }
+    }
+
+    private static void finish(List<Runnable> closers) {
+        for (var c : closers) {
+            c.run();
+        }
+    }
+
+    private static Collection<? extends Module> record(RunnerArgs args, Set<IInjectorConfig> modules, Class<?> runnableClass, ExecutorService pool, StartupTimer timer) {
+        if (!args.recordModules && !args.pruneModules && !args.explainModules) {
+            return modules;
+        }
+        // the recorded elements are reused, so no module is configured twice
+        var recordPool = pool != null ? pool : ThreadPools.newPool("diapper-record", Math.max(2, args.scanThreads));
+        List<Element> elements;
+        try {
+            elements = timer.time("record modules", () -> ModuleRecorder.record(modules, recordPool));
+        } finally {
+            if (recordPool != pool) {
+                recordPool.shutdownNow();
+            }
+        }
+        if (!args.pruneModules && !args.explainModules) {
+            return List.of(Elements.getModule(elements));
+        }
+        var pruner = new ModulePruner(modules, elements, runnableClass);
+        if (args.explainModules) {
+            pruner.explain();
+        }
+        return List.of(args.pruneModules ? pruner.pruned() : pruner.all());
+    }
+
+    /**
+     * Restarts the application in a child VM, if the current VM does not match
+     * the profile of the runnable. Returns the exit code of the child or null, if
+     * no restart was necessary.
+     */
+    private static Integer applyJvmProfile(String runnable, String[] rawArgs) {
+        JvmProfile profile;
+        try {
+            profile = Class.forName(runnable, false, Runner.class.getClassLoader()).getAnnotation(JvmProfile.class);
+        } catch (ClassNotFoundException | LinkageError e) {
+            // will be reported once the runnable is loaded
+            return null;
+        }
+        if (profile == null) {
+            return null;
+        }
+        var missing = new JvmProfileFlags(profile).missing(Relauncher.jvmArgs());
+        if (missing.isEmpty()) {
+            return null;
+        }
+        var jvmArgs = new ArrayList<>(missing);
+        jvmArgs.add(format("-D%s=true", RELAUNCHED));
+        logger().info("Restarting with JVM profile: {}", String.join(" ", missing));
+        // missing flags are not replacing any current flag, overriding ones are kept
+        return Relauncher.run(Relauncher.command(jvmArgs, a -> false, rawArgs));
+    }
+
+    /**
+     * Dynamic CDS archives can only be written by a VM that has been started
+     * with the corresponding flag, so the startup is repeated in a child VM.
+     */
+    private static int trainCds(File archive, String[] rawArgs) {
+        if (Runtime.version().feature() < 13) {
+            logger().error("Dynamic CDS archives require Java 13+, but found {}", Runtime.version());
+            return 1;
+        }
+        var dump = CDS_DUMP + archive.getAbsolutePath();
+        var cmd = Relauncher.command(List.of(dump), a -> a.startsWith(CDS_DUMP) || a.startsWith("-XX:SharedArchiveFile=") || a.startsWith("-Xshare:"), rawArgs);
+        logger().info("Training CDS archive {} ...", archive);
+        var exitCode = Relauncher.run(cmd);
+        if (exitCode != 0 || !archive.exists()) {
+            logger().error("CDS training failed with exit code {}", exitCode);
+            return exitCode != 0 ? exitCode : 1;
+        }
+        logger().info("CDS archive has been written to {}", archive);
+        return 0;
+    }
+
+    private String[] allPackages() {
+        var pkgs = new LinkedHashSet<String>();
+        pkgs.add(THIS_PACKAGE);
+        pkgs.addAll(Arrays.asList(basePkgs));
+        return pkgs.toArray(String[]::new);
+    }
+
     private boolean isAssertArgsError(Throwable t) {
         return t instanceof AssertArgsError || t instanceof ProvisionException && t.getCause() instanceof AssertArgsError;
     }
@@ -99,6 +368,10 @@ public class Runner {
         logger().info("Max. Memory: {} MB", mm);
     }
 
+    private void logScanCache(ScanCache cache) {
+        logger().info("Scan cache: {} hits, {} misses, ~{} ms saved", cache.getHits(), cache.getMisses(), cache.getSavedMs());
+    }
+
     private void logArgs(String[] rawArgs) {
         logger().info("VM Arguments: {}", VmArgs.format(rawArgs));
     }
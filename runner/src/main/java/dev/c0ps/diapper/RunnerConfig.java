@@ -16,6 +16,9 @@
 package dev.c0ps.diapper;
 
 import com.google.inject.Binder;
+import com.google.inject.matcher.Matchers;
+
+import dev.c0ps.diapper.utils.ProvisionProfiler;
 
 @InjectorConfig
 public class RunnerConfig implements IInjectorConfig {
@@ -29,5 +32,10 @@ public class RunnerConfig implements IInjectorConfig {
     @Override
     public void configure(Binder binder) {
         binder.bind(RunnerArgs.class).toInstance(args);
+        if (args.profileProvisions) {
+            var profiler = new ProvisionProfiler(args.profileTop, args.profileCountThreshold, args.profileSlowMs);
+            binder.bind(ProvisionProfiler.class).toInstance(profiler);
+            binder.bindListener(Matchers.any(), profiler);
+        }
     }
 }
\ No newline at end of file
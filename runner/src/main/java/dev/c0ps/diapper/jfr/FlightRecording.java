@@ -0,0 +1,67 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.jfr;
+
+import static java.lang.String.format;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * A JDK Flight Recording that is started programmatically, which avoids
+ * attaching to short-lived VMs from outside. The recording is written when it
+ * is stopped or, at the latest, when the VM exits.
+ */
+public class FlightRecording {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FlightRecording.class);
+
+    private final Recording recording;
+    private final File file;
+
+    private FlightRecording(Recording recording, File file) {
+        this.recording = recording;
+        this.file = file;
+    }
+
+    public static FlightRecording start(File file) {
+        try {
+            var recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("diapper");
+            recording.setDestination(file.toPath());
+            recording.setDumpOnExit(true);
+            recording.start();
+            LOG.info("Started flight recording {} ...", file);
+            return new FlightRecording(recording, file);
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException(format("Cannot start flight recording %s", file), e);
+        }
+    }
+
+    public void stop() {
+        // writes the recording to its destination
+        recording.stop();
+        recording.close();
+        LOG.info("Flight recording has been written to {}", file);
+    }
+}
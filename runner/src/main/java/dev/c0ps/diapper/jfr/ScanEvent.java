@@ -0,0 +1,38 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("dev.c0ps.diapper.Scan")
+@Label("Class Path Scan")
+@Category({ "Diapper", "Startup" })
+@Description("Scan of a class path root for injector configs")
+public class ScanEvent extends Event {
+
+    @Label("Root")
+    public String root;
+
+    @Label("Packages")
+    public String packages;
+
+    @Label("Found Classes")
+    public int found;
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.jmx;
+
+import java.util.List;
+import java.util.Map;
+
+public interface RunnerMXBean {
+
+    String getRunnable();
+
+    /** All options of the parsed 'RunnerArgs'. */
+    Map<String, String> getRunnerArgs();
+
+    /** Class names of all loaded injector configs. */
+    List<String> getModules();
+
+    /** Durations of the startup phases in ms. */
+    Map<String, Long> getStartupPhases();
+
+    long getStartupMs();
+
+    /** Time since the start of the 'Runner' in ms. */
+    long getUptimeMs();
+
+    Map<String, Long> getCounters();
+
+    String getLogLevel();
+
+    void setLogLevel(String level);
+}
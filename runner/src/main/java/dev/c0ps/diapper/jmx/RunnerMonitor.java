@@ -0,0 +1,130 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.jmx;
+
+import static java.lang.String.format;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import dev.c0ps.diapper.ILogSettings;
+import dev.c0ps.diapper.LogLevel;
+import dev.c0ps.diapper.RunnerArgs;
+import dev.c0ps.diapper.utils.Counters;
+import dev.c0ps.diapper.utils.StartupTimer;
+
+/**
+ * Exposes the state of a 'Runner' as a platform MBean.
+ */
+public class RunnerMonitor implements RunnerMXBean {
+
+    public static final String OBJECT_NAME = "dev.c0ps.diapper:type=Runner";
+
+    private final RunnerArgs args;
+    private final List<String> modules;
+    private final StartupTimer timer;
+    private final long startupMs;
+    private final Counters counters;
+    private final ILogSettings logSettings;
+
+    public RunnerMonitor(RunnerArgs args, List<String> modules, StartupTimer timer, Counters counters, ILogSettings logSettings) {
+        this.args = args;
+        this.modules = List.copyOf(modules);
+        this.timer = timer;
+        this.startupMs = timer.totalMs();
+        this.counters = counters;
+        this.logSettings = logSettings;
+    }
+
+    /** Registers the monitor, replacing a monitor of a previous 'Runner'. */
+    public void register() {
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            throw new IllegalStateException(format("Cannot register MBean %s", OBJECT_NAME), e);
+        }
+    }
+
+    @Override
+    public String getRunnable() {
+        return args.run;
+    }
+
+    @Override
+    public Map<String, String> getRunnerArgs() {
+        var values = new LinkedHashMap<String, String>();
+        for (var f : RunnerArgs.class.getFields()) {
+            try {
+                values.put(f.getName(), String.valueOf(f.get(args)));
+            } catch (IllegalAccessException e) {
+                // all fields are public
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public List<String> getModules() {
+        return modules;
+    }
+
+    @Override
+    public Map<String, Long> getStartupPhases() {
+        var phases = new LinkedHashMap<String, Long>();
+        for (var e : timer.phases().entrySet()) {
+            phases.put(e.getKey(), e.getValue() / 1_000_000);
+        }
+        return phases;
+    }
+
+    @Override
+    public long getStartupMs() {
+        return startupMs;
+    }
+
+    @Override
+    public long getUptimeMs() {
+        return timer.totalMs();
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        return counters.snapshot();
+    }
+
+    @Override
+    public synchronized String getLogLevel() {
+        return args.logLevel.name();
+    }
+
+    @Override
+    public synchronized void setLogLevel(String level) {
+        var l = LogLevel.valueOf(level.toUpperCase(Locale.ROOT));
+        logSettings.setLogLevel(l);
+        args.logLevel = l;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.metrics;
+
+import static dev.c0ps.diapper.metrics.Sample.counter;
+import static dev.c0ps.diapper.metrics.Sample.gauge;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import dev.c0ps.diapper.utils.Counters;
+import dev.c0ps.diapper.utils.StartupTimer;
+
+/**
+ * Collects the process, JVM and 'Runner' metrics.
+ */
+public class MetricsCollector {
+
+    private static final double NANOS_PER_S = 1_000_000_000.0;
+    private static final double MS_PER_S = 1000.0;
+
+    private final String runnable;
+    private final StartupTimer timer;
+    private final long startupMs;
+    private final Counters counters;
+
+    public MetricsCollector(String runnable, StartupTimer timer, Counters counters) {
+        this.runnable = runnable;
+        this.timer = timer;
+        this.startupMs = timer.totalMs();
+        this.counters = counters;
+    }
+
+    public List<Sample> collect() {
+        var samples = new ArrayList<Sample>();
+        collectRunner(samples);
+        collectJvm(samples);
+        collectProcess(samples);
+        return samples;
+    }
+
+    private void collectRunner(List<Sample> samples) {
+        samples.add(gauge("diapper_info", "runnable", runnable, 1));
+        samples.add(gauge("diapper_startup_seconds", startupMs / MS_PER_S));
+        for (var e : timer.phases().entrySet()) {
+            samples.add(gauge("diapper_startup_phase_seconds", "phase", e.getKey(), e.getValue() / NANOS_PER_S));
+        }
+        for (var e : counters.snapshot().entrySet()) {
+            samples.add(gauge("diapper_counter", "name", e.getKey(), e.getValue()));
+        }
+    }
+
+    private static void collectJvm(List<Sample> samples) {
+        var heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        samples.add(gauge("jvm_memory_heap_used_bytes", heap.getUsed()));
+        samples.add(gauge("jvm_memory_heap_committed_bytes", heap.getCommitted()));
+        samples.add(gauge("jvm_memory_heap_max_bytes", heap.getMax()));
+        var nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+        samples.add(gauge("jvm_memory_nonheap_used_bytes", nonHeap.getUsed()));
+
+        for (var gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            samples.add(counter("jvm_gc_collections_total", "gc", gc.getName(), gc.getCollectionCount()));
+            samples.add(counter("jvm_gc_collection_seconds_total", "gc", gc.getName(), gc.getCollectionTime() / MS_PER_S));
+        }
+
+        var threads = ManagementFactory.getThreadMXBean();
+        samples.add(gauge("jvm_threads_live", threads.getThreadCount()));
+        samples.add(gauge("jvm_threads_daemon", threads.getDaemonThreadCount()));
+        samples.add(gauge("jvm_threads_peak", threads.getPeakThreadCount()));
+
+        samples.add(gauge("jvm_classes_loaded", ManagementFactory.getClassLoadingMXBean().getLoadedClassCount()));
+    }
+
+    private static void collectProcess(List<Sample> samples) {
+        samples.add(gauge("process_uptime_seconds", ManagementFactory.getRuntimeMXBean().getUptime() / MS_PER_S));
+        var os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            var cpu = ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+            if (cpu >= 0) {
+                samples.add(counter("process_cpu_seconds_total", cpu / NANOS_PER_S));
+            }
+        }
+        samples.add(gauge("process_available_processors", os.getAvailableProcessors()));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.metrics;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Publishes the collected metrics on a local Prometheus endpoint and/or as
+ * periodic snapshots in a JSON-lines file. A final snapshot is written when
+ * the exporter is closed or, at the latest, when the VM exits.
+ */
+public class MetricsExporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsExporter.class);
+
+    private final MetricsCollector collector;
+    private final File file;
+    private final Thread hook = new Thread(this::flush, "diapper-metrics-hook");
+    private HttpServer server;
+    private ScheduledExecutorService scheduler;
+
+    private MetricsExporter(MetricsCollector collector, File file) {
+        this.collector = collector;
+        this.file = file;
+    }
+
+    /**
+     * Starts the exporter. The endpoint is only served for a non-null port (0
+     * picks a free port) and snapshots are only written for a non-null file.
+     */
+    public static MetricsExporter start(MetricsCollector collector, Integer port, File file, long intervalMs) {
+        var exporter = new MetricsExporter(collector, file);
+        if (port != null) {
+            exporter.serve(port);
+        }
+        if (file != null) {
+            exporter.flush();
+            exporter.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                var t = new Thread(r, "diapper-metrics");
+                t.setDaemon(true);
+                return t;
+            });
+            exporter.scheduler.scheduleAtFixedRate(exporter::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+        Runtime.getRuntime().addShutdownHook(exporter.hook);
+        return exporter;
+    }
+
+    private void serve(int port) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new IllegalStateException(format("Cannot serve metrics on port %d", port), e);
+        }
+        server.createContext("/metrics", this::handle);
+        server.start();
+        LOG.info("Serving metrics on http://localhost:{}/metrics", port());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        // HttpExchange is only AutoCloseable from Java 15 on
+        try {
+            var body = MetricsFormat.prometheus(collector.collect()).getBytes(UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    public int port() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    /** Appends a snapshot to the file, if any. */
+    public synchronized void flush() {
+        if (file == null) {
+            return;
+        }
+        var line = MetricsFormat.jsonLine(System.currentTimeMillis(), collector.collect()) + "\n";
+        try (var out = new FileOutputStream(file, true)) {
+            out.write(line.getBytes(UTF_8));
+        } catch (IOException e) {
+            LOG.warn("Cannot write metrics to {} ({})", file, e.getMessage());
+        }
+    }
+
+    /** Writes a final snapshot and stops the endpoint. */
+    public void close() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            // the VM is already shutting down, the hook writes the final snapshot
+            return;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+        flush();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.metrics;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import dev.c0ps.diapper.utils.Json;
+
+/**
+ * Formats samples in the Prometheus text format or as a JSON line, in which
+ * every sample is keyed by its Prometheus selector.
+ */
+public class MetricsFormat {
+
+    private MetricsFormat() {
+        // do not instantiate
+    }
+
+    public static String prometheus(List<Sample> samples) {
+        var sb = new StringBuilder();
+        var typed = new HashSet<String>();
+        for (var s : samples) {
+            if (typed.add(s.name)) {
+                sb.append("# TYPE ").append(s.name).append(' ').append(s.type).append('\n');
+            }
+            sb.append(selector(s)).append(' ').append(value(s.value)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    public static String jsonLine(long timestamp, List<Sample> samples) {
+        var sb = new StringBuilder();
+        sb.append("{\"timestamp\":").append(timestamp);
+        for (var s : samples) {
+            sb.append(',');
+            Json.quote(sb, selector(s));
+            sb.append(':').append(value(s.value));
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String selector(Sample s) {
+        if (s.labels.isEmpty()) {
+            return s.name;
+        }
+        var sb = new StringBuilder(s.name).append('{');
+        var isFirst = true;
+        for (Map.Entry<String, String> e : s.labels.entrySet()) {
+            if (!isFirst) {
+                sb.append(',');
+            }
+            isFirst = false;
+            sb.append(e.getKey()).append("=\"");
+            for (var c : e.getValue().toCharArray()) {
+                if (c == '\\' || c == '"') {
+                    sb.append('\\').append(c);
+                } else if (c == '\n') {
+                    sb.append("\\n");
+                } else {
+                    sb.append(c);
+                }
+            }
+            sb.append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String value(double v) {
+        if (v == Math.rint(v) && !Double.isInfinite(v) && Math.abs(v) < 1e15) {
+            return Long.toString((long) v);
+        }
+        return Double.toString(v);
+    }
+}
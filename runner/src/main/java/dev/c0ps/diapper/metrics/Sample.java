@@ -0,0 +1,53 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.metrics;
+
+import java.util.Map;
+
+/**
+ * A single value of a metric, which follows the naming conventions of
+ * Prometheus.
+ */
+public class Sample {
+
+    public final String name;
+    public final String type;
+    public final Map<String, String> labels;
+    public final double value;
+
+    public Sample(String name, String type, Map<String, String> labels, double value) {
+        this.name = name;
+        this.type = type;
+        this.labels = labels;
+        this.value = value;
+    }
+
+    public static Sample gauge(String name, double value) {
+        return new Sample(name, "gauge", Map.of(), value);
+    }
+
+    public static Sample gauge(String name, String label, String labelValue, double value) {
+        return new Sample(name, "gauge", Map.of(label, labelValue), value);
+    }
+
+    public static Sample counter(String name, String label, String labelValue, double value) {
+        return new Sample(name, "counter", Map.of(label, labelValue), value);
+    }
+
+    public static Sample counter(String name, double value) {
+        return new Sample(name, "counter", Map.of(), value);
+    }
+}
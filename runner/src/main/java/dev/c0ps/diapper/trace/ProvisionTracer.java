@@ -0,0 +1,80 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.trace;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import com.google.inject.Binder;
+import com.google.inject.Binding;
+import com.google.inject.matcher.Matchers;
+import com.google.inject.spi.ElementSource;
+import com.google.inject.spi.ProvisionListener;
+
+import dev.c0ps.diapper.IInjectorConfig;
+import dev.c0ps.diapper.utils.StartupTimer;
+
+/**
+ * Records a span for every provision until it is stopped, which happens once
+ * the startup is complete. Provisions of dependencies are nested within the
+ * provision that requires them.
+ */
+public class ProvisionTracer implements IInjectorConfig, ProvisionListener {
+
+    private final StartupTimer timer;
+    private volatile boolean isStopped;
+
+    public ProvisionTracer(StartupTimer timer) {
+        this.timer = timer;
+    }
+
+    @Override
+    public void configure(Binder binder) {
+        binder.bindListener(Matchers.any(), this);
+    }
+
+    @Override
+    public <T> void onProvision(ProvisionInvocation<T> provision) {
+        if (isStopped) {
+            // the run itself might provision in a loop, which would grow the trace without bound
+            return;
+        }
+        var start = System.nanoTime();
+        try {
+            provision.provision();
+        } finally {
+            var binding = provision.getBinding();
+            timer.span(name(binding), "provision", start, Map.of("key", binding.getKey().toString()));
+        }
+    }
+
+    public void stop() {
+        isStopped = true;
+    }
+
+    /* pkg protected */ static String name(Binding<?> binding) {
+        // bindings of @Provides methods are declared by the method
+        var source = binding.getSource();
+        if (source instanceof ElementSource) {
+            source = ((ElementSource) source).getDeclaringSource();
+        }
+        if (source instanceof Method) {
+            var m = (Method) source;
+            return m.getDeclaringClass().getName() + "." + m.getName() + "()";
+        }
+        return binding.getKey().getTypeLiteral().toString();
+    }
+}
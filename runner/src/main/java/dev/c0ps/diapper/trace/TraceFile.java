@@ -0,0 +1,128 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.trace;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.c0ps.diapper.utils.Json;
+import dev.c0ps.diapper.utils.StartupTimer;
+import dev.c0ps.diapper.utils.StartupTimer.Span;
+
+/**
+ * Writes all spans of a {@link StartupTimer} as a trace in the Chrome
+ * trace-event format, which can be opened in Perfetto or chrome://tracing. The
+ * trace is written when it is closed or, at the latest, when the VM exits.
+ */
+public class TraceFile {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TraceFile.class);
+
+    private final File file;
+    private final StartupTimer timer;
+    private final Thread hook = new Thread(this::write, "diapper-trace-hook");
+
+    private TraceFile(File file, StartupTimer timer) {
+        this.file = file;
+        this.timer = timer;
+    }
+
+    public static TraceFile start(File file, StartupTimer timer) {
+        var trace = new TraceFile(file, timer);
+        Runtime.getRuntime().addShutdownHook(trace.hook);
+        return trace;
+    }
+
+    public void close() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            // the VM is already shutting down, the hook writes the trace
+            return;
+        }
+        write();
+    }
+
+    private synchronized void write() {
+        try {
+            Files.write(file.toPath(), toJson(timer.spans(), timer.startNanos()).getBytes(UTF_8));
+            LOG.info("Trace has been written to {}", file);
+        } catch (IOException e) {
+            LOG.warn("Cannot write trace to {} ({})", file, e.getMessage());
+        }
+    }
+
+    /* pkg protected */ static String toJson(List<Span> spans, long originNanos) {
+        var pid = ProcessHandle.current().pid();
+        var sb = new StringBuilder("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        var threads = new LinkedHashMap<Long, String>();
+        var isFirst = true;
+        for (var s : spans) {
+            threads.putIfAbsent(s.threadId, s.threadName);
+            isFirst = separate(sb, isFirst);
+            sb.append("{\"ph\":\"X\",\"name\":");
+            Json.quote(sb, s.name);
+            sb.append(",\"cat\":");
+            Json.quote(sb, s.category);
+            sb.append(format(Locale.ROOT, ",\"ts\":%.3f,\"dur\":%.3f,\"pid\":%d,\"tid\":%d", micros(s.startNanos - originNanos), micros(s.endNanos - s.startNanos), pid, s.threadId));
+            if (!s.args.isEmpty()) {
+                sb.append(",\"args\":");
+                object(sb, s.args);
+            }
+            sb.append('}');
+        }
+        for (var e : threads.entrySet()) {
+            isFirst = separate(sb, isFirst);
+            sb.append(format("{\"ph\":\"M\",\"name\":\"thread_name\",\"pid\":%d,\"tid\":%d,\"args\":", pid, e.getKey()));
+            object(sb, Map.of("name", e.getValue()));
+            sb.append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static boolean separate(StringBuilder sb, boolean isFirst) {
+        if (!isFirst) {
+            sb.append(',');
+        }
+        return false;
+    }
+
+    private static void object(StringBuilder sb, Map<String, String> values) {
+        sb.append('{');
+        var isFirst = true;
+        for (var e : values.entrySet()) {
+            isFirst = separate(sb, isFirst);
+            Json.quote(sb, e.getKey()).append(':');
+            Json.quote(sb, e.getValue());
+        }
+        sb.append('}');
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds classes that are annotated with a marker annotation by reading the
+ * class files directly, without loading any of them. Just like the previously
+ * used Reflections library, the result includes types that are annotated
+ * through a meta-annotation and all subtypes of the annotated types, as long as
+ * they are located in the same class path root.
+ */
+public class AnnotationScanner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnnotationScanner.class);
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final String JAR_SEP = "!/";
+
+    private final String markerAnnotation;
+
+    public AnnotationScanner(Class<? extends Annotation> markerAnnotation) {
+        this.markerAnnotation = markerAnnotation.getName();
+    }
+
+    /**
+     * Finds all class path roots that contain the given package, in the same way
+     * as Reflections' ClasspathHelper.forPackage.
+     */
+    public static Set<URL> findRoots(String basePkg, ClassLoader... classLoaders) {
+        var resource = basePkg.replace('.', '/');
+        var roots = new LinkedHashSet<URL>();
+        for (var cl : new LinkedHashSet<>(Arrays.asList(classLoaders))) {
+            if (cl == null) {
+                continue;
+            }
+            try {
+                var urls = cl.getResources(resource);
+                while (urls.hasMoreElements()) {
+                    var url = urls.nextElement();
+                    var ext = url.toExternalForm();
+                    var idx = resource.isEmpty() ? -1 : ext.lastIndexOf(resource);
+                    roots.add(idx == -1 ? url : new URL(url, ext.substring(0, idx)));
+                }
+            } catch (IOException e) {
+                LOG.warn("Cannot find class path roots for package {} ({})", basePkg, e.getMessage());
+            }
+        }
+        return roots;
+    }
+
+    public Set<String> scan(URL root, Collection<String> basePkgs) {
+        var prefixes = new TreeSet<String>();
+        for (var basePkg : basePkgs) {
+            prefixes.add(basePkg.isEmpty() ? "" : basePkg.replace('.', '/') + '/');
+        }
+        var infos = new HashMap<String, ClassInfo>();
+        try {
+            var segments = new LinkedList<>(Arrays.asList(root.toExternalForm().split(JAR_SEP)));
+            var file = toFile(segments.removeFirst());
+            if (file == null) {
+                LOG.warn("Cannot scan class path root {}, unsupported location", root);
+                return Set.of();
+            }
+            segments.removeIf(String::isEmpty);
+            if (file.isDirectory()) {
+                scanDir(file.toPath(), prefixes, infos);
+            } else if (file.isFile()) {
+                scanJar(file, segments, prefixes, infos);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            LOG.warn("Cannot scan class path root {} ({})", root, e.getMessage());
+        }
+        return resolve(infos.values());
+    }
+
+    private Set<String> resolve(Collection<ClassInfo> infos) {
+        var annotatedBy = new HashMap<String, List<String>>();
+        var subTypesOf = new HashMap<String, List<String>>();
+        for (var info : infos) {
+            for (var a : info.annotations) {
+                annotatedBy.computeIfAbsent(a, x -> new ArrayList<>()).add(info.name);
+            }
+            if (info.superName != null) {
+                subTypesOf.computeIfAbsent(info.superName, x -> new ArrayList<>()).add(info.name);
+            }
+            for (var i : info.interfaces) {
+                subTypesOf.computeIfAbsent(i, x -> new ArrayList<>()).add(info.name);
+            }
+        }
+        var types = new TreeSet<String>();
+        collect(markerAnnotation, annotatedBy, types);
+        for (var t : new ArrayList<>(types)) {
+            collect(t, subTypesOf, types);
+        }
+        return types;
+    }
+
+    private static void collect(String key, Map<String, List<String>> edges, Set<String> result) {
+        var todo = new LinkedList<String>();
+        todo.add(key);
+        while (!todo.isEmpty()) {
+            for (var t : edges.getOrDefault(todo.removeFirst(), List.of())) {
+                if (result.add(t)) {
+                    todo.add(t);
+                }
+            }
+        }
+    }
+
+    private static void scanDir(Path root, Set<String> prefixes, Map<String, ClassInfo> infos) throws IOException {
+        for (var prefix : prefixes) {
+            var dir = root.resolve(prefix);
+            if (isNested(prefix, prefixes) || !Files.isDirectory(dir)) {
+                continue;
+            }
+            try (Stream<Path> s = Files.walk(dir)) {
+                var it = s.iterator();
+                while (it.hasNext()) {
+                    var p = it.next();
+                    var name = root.relativize(p).toString().replace(File.separatorChar, '/');
+                    if (isClassFile(name, prefixes)) {
+                        try (var in = Files.newInputStream(p)) {
+                            add(name, in, infos);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isNested(String prefix, Set<String> prefixes) {
+        for (var other : prefixes) {
+            if (!other.equals(prefix) && prefix.startsWith(other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void scanJar(File file, List<String> segments, Set<String> prefixes, Map<String, ClassInfo> infos) throws IOException {
+        // ZipFile only reads the central directory and then allows random access to the entries
+        try (var zip = new ZipFile(file)) {
+            var first = segments.isEmpty() ? "" : decode(segments.get(0));
+            var nested = first.isEmpty() ? null : zip.getEntry(first);
+            if (nested != null && !nested.isDirectory()) {
+                try (var in = new ZipInputStream(zip.getInputStream(nested))) {
+                    scanNested(in, segments.subList(1, segments.size()), prefixes, infos);
+                }
+                return;
+            }
+            var dir = toDir(first);
+            var entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                var e = entries.nextElement();
+                var name = e.getName();
+                if (name.startsWith(dir) && isClassFile(name.substring(dir.length()), prefixes)) {
+                    try (var in = zip.getInputStream(e)) {
+                        add(name, in, infos);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Processes an (already opened) jar, in which the remaining segments point
+     * either to a directory (e.g., "BOOT-INF/classes") or to another nested jar.
+     */
+    private static void scanNested(ZipInputStream in, List<String> segments, Set<String> prefixes, Map<String, ClassInfo> infos) throws IOException {
+        var dir = "";
+        if (!segments.isEmpty()) {
+            var first = decode(segments.get(0));
+            if (!first.endsWith(".jar")) {
+                dir = toDir(first);
+                segments = segments.subList(1, segments.size());
+            }
+        }
+        var e = in.getNextEntry();
+        while (e != null) {
+            var name = e.getName();
+            if (!segments.isEmpty()) {
+                if (name.equals(decode(segments.get(0)))) {
+                    // the nested stream must not be closed, as this would close the outer stream
+                    scanNested(new ZipInputStream(in), segments.subList(1, segments.size()), prefixes, infos);
+                    return;
+                }
+            } else if (name.startsWith(dir)) {
+                if (isClassFile(name.substring(dir.length()), prefixes)) {
+                    add(name, in, infos);
+                }
+            }
+            e = in.getNextEntry();
+        }
+    }
+
+    private static String toDir(String path) {
+        return path.isEmpty() || path.endsWith("/") ? path : path + '/';
+    }
+
+    private static boolean isClassFile(String name, Set<String> prefixes) {
+        if (!name.endsWith(".class") || name.endsWith("module-info.class") || name.endsWith("package-info.class")) {
+            return false;
+        }
+        for (var prefix : prefixes) {
+            if (name.startsWith(prefix)) {
+                return !name.startsWith("META-INF/");
+            }
+        }
+        return false;
+    }
+
+    private static void add(String name, InputStream in, Map<String, ClassInfo> infos) throws IOException {
+        try {
+            var info = ClassInfo.read(in.readAllBytes());
+            infos.put(info.name, info);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Skipping class file {}, which cannot be parsed ({})", name, e.getClass().getName());
+        }
+    }
+
+    private static File toFile(String location) {
+        var url = location.startsWith("jar:") ? location.substring(4) : location;
+        if (!url.startsWith("file:")) {
+            return null;
+        }
+        try {
+            return Paths.get(new URI(url)).toFile();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            try {
+                return new File(URLDecoder.decode(new URL(url).getPath(), UTF_8));
+            } catch (MalformedURLException e2) {
+                return null;
+            }
+        }
+    }
+
+    private static String decode(String segment) {
+        return URLDecoder.decode(segment.replace("+", "%2B"), UTF_8);
+    }
+
+    /**
+     * Minimal view on a class file that only contains the information that is
+     * required to resolve the annotated types and their subtypes.
+     */
+    /* pkg protected */ static class ClassInfo {
+
+        private static final String VISIBLE = "RuntimeVisibleAnnotations";
+        private static final String INVISIBLE = "RuntimeInvisibleAnnotations";
+
+        /* pkg protected */ String name;
+        /* pkg protected */ String superName;
+        /* pkg protected */ final List<String> interfaces = new ArrayList<>();
+        /* pkg protected */ final List<String> annotations = new ArrayList<>();
+
+        private final byte[] buf;
+        private final DataInputStream in;
+        private int[] offsets;
+
+        private ClassInfo(byte[] buf) {
+            this.buf = buf;
+            this.in = new DataInputStream(new ByteArrayInputStream(buf));
+        }
+
+        /* pkg protected */ static ClassInfo read(byte[] buf) throws IOException {
+            var info = new ClassInfo(buf);
+            info.read();
+            return info;
+        }
+
+        private void read() throws IOException {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("no class file");
+            }
+            in.skipBytes(4); // minor and major version
+            readConstantPool();
+
+            in.skipBytes(2); // access flags
+            name = className(in.readUnsignedShort());
+            superName = className(in.readUnsignedShort());
+            var numInterfaces = in.readUnsignedShort();
+            for (var i = 0; i < numInterfaces; i++) {
+                interfaces.add(className(in.readUnsignedShort()));
+            }
+            skipMembers(); // fields
+            skipMembers(); // methods
+
+            var numAttributes = in.readUnsignedShort();
+            for (var i = 0; i < numAttributes; i++) {
+                var attrName = utf8(in.readUnsignedShort());
+                var length = in.readInt();
+                if (VISIBLE.equals(attrName) || INVISIBLE.equals(attrName)) {
+                    readAnnotations();
+                } else {
+                    in.skipBytes(length);
+                }
+            }
+        }
+
+        private void readConstantPool() throws IOException {
+            var count = in.readUnsignedShort();
+            offsets = new int[count];
+            for (var i = 1; i < count; i++) {
+                var tag = in.readUnsignedByte();
+                switch (tag) {
+                case 1: // Utf8
+                    offsets[i] = buf.length - in.available();
+                    in.skipBytes(in.readUnsignedShort());
+                    break;
+                case 7: // Class
+                    // remember the index of the name, which is resolved on demand
+                    offsets[i] = -in.readUnsignedShort();
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    in.skipBytes(2);
+                    break;
+                case 15: // MethodHandle
+                    in.skipBytes(3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.skipBytes(4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    in.skipBytes(8);
+                    i++; // occupies two slots
+                    break;
+                default:
+                    throw new IOException(String.format("unknown constant pool tag %d", tag));
+                }
+            }
+        }
+
+        private void skipMembers() throws IOException {
+            var count = in.readUnsignedShort();
+            for (var i = 0; i < count; i++) {
+                in.skipBytes(6); // access flags, name, and descriptor
+                skipAttributes();
+            }
+        }
+
+        private void skipAttributes() throws IOException {
+            var count = in.readUnsignedShort();
+            for (var i = 0; i < count; i++) {
+                in.skipBytes(2);
+                in.skipBytes(in.readInt());
+            }
+        }
+
+        private void readAnnotations() throws IOException {
+            var count = in.readUnsignedShort();
+            for (var i = 0; i < count; i++) {
+                var desc = utf8(in.readUnsignedShort());
+                // descriptors have the form "Lsome/Type;"
+                annotations.add(desc.substring(1, desc.length() - 1).replace('/', '.'));
+                skipElementValuePairs();
+            }
+        }
+
+        private void skipElementValuePairs() throws IOException {
+            var count = in.readUnsignedShort();
+            for (var i = 0; i < count; i++) {
+                in.skipBytes(2);
+                skipElementValue();
+            }
+        }
+
+        private void skipElementValue() throws IOException {
+            var tag = in.readUnsignedByte();
+            switch (tag) {
+            case 'e':
+                in.skipBytes(4);
+                break;
+            case '@':
+                in.skipBytes(2);
+                skipElementValuePairs();
+                break;
+            case '[':
+                var count = in.readUnsignedShort();
+                for (var i = 0; i < count; i++) {
+                    skipElementValue();
+                }
+                break;
+            default:
+                // constants and classes
+                in.skipBytes(2);
+            }
+        }
+
+        private String className(int idx) throws IOException {
+            if (idx == 0) {
+                return null;
+            }
+            return utf8(-offsets[idx]).replace('/', '.');
+        }
+
+        private String utf8(int idx) throws IOException {
+            var offset = offsets[idx];
+            var len = ((buf[offset] & 0xFF) << 8) | (buf[offset + 1] & 0xFF);
+            var isAscii = true;
+            for (var i = offset + 2; i < offset + 2 + len && isAscii; i++) {
+                isAscii = buf[i] >= 0;
+            }
+            if (isAscii) {
+                return new String(buf, offset + 2, len, ISO_8859_1);
+            }
+            // class files use a "modified UTF-8", which is exactly what readUTF expects
+            return new DataInputStream(new ByteArrayInputStream(buf, offset, len + 2)).readUTF();
+        }
+    }
+}
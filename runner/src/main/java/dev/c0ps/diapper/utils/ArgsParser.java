@@ -18,47 +18,204 @@ package dev.c0ps.diapper.utils;
 import static java.lang.String.format;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+
+import dev.c0ps.diapper.ArgsBinders;
+import dev.c0ps.diapper.IArgsBinder;
 
 public class ArgsParser {
 
     private final Map<String, Class<?>> parameters = new HashMap<>();
+    private final Map<Class<?>, Optional<IArgsBinder<?>>> binders = new ConcurrentHashMap<>();
     private final String[] rawArgs;
+    private final boolean canUseBinders;
+    private final String[] tokens;
+    private final Map<String, List<Integer>> index;
 
     public ArgsParser(String[] rawArgs) {
+        // JCommander expands "@file" arguments, which is not supported by the binders
+        this(rawArgs, Arrays.stream(rawArgs).noneMatch(a -> a.startsWith("@")));
+    }
+
+    /** Generated binders can be disabled, e.g., to compare them with JCommander. */
+    public ArgsParser(String[] rawArgs, boolean canUseBinders) {
         this.rawArgs = rawArgs;
+        this.canUseBinders = canUseBinders;
+        // tokenize once and share the result across all args classes
+        this.tokens = new String[rawArgs.length];
+        for (var i = 0; i < rawArgs.length; i++) {
+            tokens[i] = trim(rawArgs[i]);
+        }
+        this.index = index(tokens);
     }
 
     public <T> T parse(Class<T> paramType) {
-        var argsObj = initDefault(paramType);
-        var jc = JCommander.newBuilder() //
+        return parse(paramType, newInstance(paramType));
+    }
+
+    /**
+     * Creates an args object with default values and reserves its option names,
+     * so conflicts are detected before the object is parsed.
+     */
+    public <T> T create(Class<T> paramType) {
+        var argsObj = newInstance(paramType);
+        var binder = binder(paramType);
+        checkForDuplicates(paramType, binder != null ? binder.fields().keySet() : names(jcommander(argsObj)));
+        return argsObj;
+    }
+
+    private <T> T newInstance(Class<T> paramType) {
+        var binder = binder(paramType);
+        if (binder == null) {
+            return initDefault(paramType);
+        }
+        try {
+            return binder.create();
+        } catch (RuntimeException e) {
+            var msg = format("Default constructor of %s failed with %s: %s", paramType.getName(), e.getClass().getName(), e.getMessage());
+            throw new IllegalStateException(msg);
+        }
+    }
+
+    /**
+     * Parses the raw arguments into an args object that has been created before.
+     */
+    public <T> T parse(Class<T> paramType, T argsObj) {
+        var binder = binder(paramType);
+        if (binder != null) {
+            bind(argsObj, binder);
+            checkForDuplicates(paramType, binder.fields().keySet());
+            return argsObj;
+        }
+
+        var jc = jcommander(argsObj);
+        jc.parse(rawArgs);
+        checkForDuplicates(paramType, names(jc));
+        return argsObj;
+    }
+
+    private static JCommander jcommander(Object argsObj) {
+        return JCommander.newBuilder() //
                 .addObject(argsObj) //
                 .acceptUnknownOptions(true) //
                 .build();
-        jc.parse(rawArgs);
-        checkForDuplicates(paramType, jc);
-        return argsObj;
     }
 
-    private <T> void checkForDuplicates(Class<T> c, JCommander jc) {
+    @SuppressWarnings("unchecked")
+    private <T> IArgsBinder<T> binder(Class<T> paramType) {
+        if (!canUseBinders) {
+            return null;
+        }
+        return (IArgsBinder<T>) binders.computeIfAbsent(paramType, ArgsParser::findBinder).orElse(null);
+    }
+
+    private static List<String> names(JCommander jc) {
+        var names = new LinkedList<String>();
         for (var f : jc.getFields().values()) {
-            for (var n : f.getParameter().names()) {
-                if (!parameters.containsKey(n)) {
-                    parameters.put(n, c);
-                    continue;
-                }
-                var c2 = parameters.get(n);
-                if (c.equals(c2)) {
-                    // the same argsObj is being loaded again
-                    continue;
+            names.addAll(Arrays.asList(f.getParameter().names()));
+        }
+        return names;
+    }
+
+    private synchronized <T> void checkForDuplicates(Class<T> c, Collection<String> names) {
+        for (var n : names) {
+            if (!parameters.containsKey(n)) {
+                parameters.put(n, c);
+                continue;
+            }
+            var c2 = parameters.get(n);
+            if (c.equals(c2)) {
+                // the same argsObj is being loaded again
+                continue;
+            }
+            var msg = format("The parameter %s is defined in both %s and %s", n, c.getName(), c2.getName());
+            throw new IllegalStateException(msg);
+        }
+    }
+
+    private static Optional<IArgsBinder<?>> findBinder(Class<?> paramType) {
+        try {
+            var name = ArgsBinders.binderName(paramType.getName());
+            var c = Class.forName(name, true, paramType.getClassLoader());
+            return Optional.of((IArgsBinder<?>) c.getConstructor().newInstance());
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            // no (usable) binder has been generated, fall back to JCommander
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Mirrors the behavior of JCommander with "acceptUnknownOptions", i.e., all
+     * unknown tokens are skipped and only values after "--" are rejected. Only the
+     * positions of the own options are visited, which are looked up in the index.
+     */
+    private <T> void bind(T argsObj, IArgsBinder<T> binder) {
+        var fields = binder.fields();
+        var assigned = new HashSet<String>();
+        var consumed = -1;
+        for (var i : positions(fields.keySet())) {
+            if (i <= consumed) {
+                // the position is the value of a preceding option
+                continue;
+            }
+            var arg = tokens[i];
+            if ("--".equals(arg)) {
+                if (i + 1 < tokens.length) {
+                    throw new ParameterException(format("Was passed main parameter '%s' but no main parameter was defined in your arg class", tokens[i + 1]));
                 }
-                var msg = format("The parameter %s is defined in both %s and %s", n, c.getName(), c2.getName());
-                throw new IllegalStateException(msg);
+                break;
+            }
+            var isFirst = assigned.add(fields.get(arg));
+            if (binder.arity(arg) == 0) {
+                binder.bind(argsObj, arg, null, isFirst);
+                continue;
+            }
+            var offset = i + 1 < rawArgs.length && "--".equals(rawArgs[i + 1]) ? 1 : 0;
+            if (i + 1 + offset >= rawArgs.length) {
+                throw new ParameterException(format("Expected a value after parameter %s", arg));
             }
+            binder.bind(argsObj, arg, rawArgs[i + 1 + offset], isFirst);
+            consumed = i + 1;
+        }
+    }
+
+    private List<Integer> positions(Set<String> names) {
+        var positions = new ArrayList<>(index.getOrDefault("--", List.of()));
+        for (var n : names) {
+            positions.addAll(index.getOrDefault(n, List.of()));
+        }
+        Collections.sort(positions);
+        return positions;
+    }
+
+    private static Map<String, List<Integer>> index(String[] tokens) {
+        var index = new HashMap<String, List<Integer>>();
+        for (var i = 0; i < tokens.length; i++) {
+            index.computeIfAbsent(tokens[i], t -> new ArrayList<>()).add(i);
+        }
+        return index;
+    }
+
+    private static String trim(String arg) {
+        var a = arg.trim();
+        if (a.length() > 1 && a.startsWith("\"") && a.endsWith("\"")) {
+            a = a.substring(1, a.length() - 1);
         }
+        return a;
     }
 
     private static <T> T initDefault(Class<T> type) {
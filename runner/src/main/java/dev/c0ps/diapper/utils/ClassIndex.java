@@ -0,0 +1,111 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static dev.c0ps.diapper.InjectorConfigProcessor.CONFIG_INDEX;
+import static dev.c0ps.diapper.InjectorConfigProcessor.RUNNABLE_INDEX;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Build-time index of all class path roots that have been compiled with the
+ * {@link dev.c0ps.diapper.InjectorConfigProcessor}.
+ */
+public class ClassIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClassIndex.class);
+
+    private final Set<String> roots = new HashSet<>();
+    private final Set<String> configs = new TreeSet<>();
+    private final Set<String> runnables = new TreeSet<>();
+
+    public static ClassIndex load(ClassLoader cl) {
+        var idx = new ClassIndex();
+        try {
+            for (var url : Collections.list(cl.getResources(CONFIG_INDEX))) {
+                idx.roots.add(toRoot(url, CONFIG_INDEX));
+                idx.configs.addAll(readLines(url));
+            }
+            for (var url : Collections.list(cl.getResources(RUNNABLE_INDEX))) {
+                idx.runnables.addAll(readLines(url));
+            }
+        } catch (IOException e) {
+            LOG.warn("Reading class index failed, falling back to class path scanning ({})", e.getMessage());
+            return new ClassIndex();
+        }
+        return idx;
+    }
+
+    public boolean isIndexed(URL root) {
+        return roots.contains(normalize(root.toExternalForm()));
+    }
+
+    public Set<String> getConfigs(String basePkg) {
+        var prefix = basePkg + ".";
+        var res = new TreeSet<String>();
+        for (var c : configs) {
+            if (basePkg.isEmpty() || c.startsWith(prefix)) {
+                res.add(c);
+            }
+        }
+        return res;
+    }
+
+    public boolean isConfig(String name) {
+        return configs.contains(name);
+    }
+
+    public Set<String> getRunnables() {
+        return runnables;
+    }
+
+    private static Set<String> readLines(URL url) throws IOException {
+        var lines = new HashSet<String>();
+        try (var r = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
+    /* pkg protected */ static String toRoot(URL url, String resource) {
+        var s = url.toExternalForm();
+        return normalize(s.substring(0, s.length() - resource.length()));
+    }
+
+    /* pkg protected */ static String normalize(String url) {
+        if (url.startsWith("jar:") && url.endsWith("!/")) {
+            return url.substring(4, url.length() - 2);
+        }
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
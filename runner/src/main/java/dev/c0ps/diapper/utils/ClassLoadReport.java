@@ -0,0 +1,162 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.c0ps.diapper.utils.StartupTimer.Span;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Reports how many classes have been loaded in which startup phase and from
+ * which class path root. Every class load is recorded as a JFR event, which is
+ * attributed to the innermost span that has been running on the loading thread
+ * at that time.
+ */
+public class ClassLoadReport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClassLoadReport.class);
+    private static final String CLASS_LOAD = "jdk.ClassLoad";
+    private static final String OTHER = "(outside of startup phases)";
+
+    private final Recording recording;
+    private final long startCount;
+    private final long startNanos = System.nanoTime();
+    private final long startEpochNanos = epochNanos(Instant.now());
+
+    private ClassLoadReport(Recording recording) {
+        this.recording = recording;
+        this.startCount = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount();
+    }
+
+    public static ClassLoadReport start() {
+        var recording = new Recording();
+        recording.setName("diapper-class-loading");
+        recording.enable(CLASS_LOAD).withoutStackTrace().withThreshold(Duration.ZERO);
+        recording.start();
+        return new ClassLoadReport(recording);
+    }
+
+    /** Stops the recording and logs the class loads per phase and per source. */
+    public void report(List<Span> spans) {
+        var total = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount();
+        var events = stop();
+        var perPhase = new HashMap<String, Integer>();
+        var perSource = new HashMap<String, Integer>();
+        for (var e : events) {
+            var thread = e.getThread();
+            var time = toNanoTime(epochNanos(e.getStartTime()));
+            var phase = phase(spans, thread == null ? -1 : thread.getJavaThreadId(), time);
+            perPhase.merge(phase, 1, Integer::sum);
+            perSource.merge(source(e.getClass("loadedClass").getName()), 1, Integer::sum);
+        }
+        LOG.info("Loaded {} classes since the start of the report ({} before), per phase:{}", total - startCount, startCount, table(perPhase));
+        LOG.info("Classes loaded per source:{}", table(perSource));
+    }
+
+    private List<RecordedEvent> stop() {
+        try {
+            recording.stop();
+            var tmp = Files.createTempFile("diapper-classes", ".jfr");
+            try {
+                recording.dump(tmp);
+                var events = new ArrayList<RecordedEvent>();
+                for (var e : RecordingFile.readAllEvents(tmp)) {
+                    if (CLASS_LOAD.equals(e.getEventType().getName())) {
+                        events.add(e);
+                    }
+                }
+                return events;
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the recorded class loads", e);
+        } finally {
+            recording.close();
+        }
+    }
+
+    /* pkg protected */ long toNanoTime(long epochNanos) {
+        return startNanos + (epochNanos - startEpochNanos);
+    }
+
+    /* pkg protected */ static String phase(List<Span> spans, long threadId, long nanoTime) {
+        Span innermost = null;
+        for (var s : spans) {
+            if (s.threadId == threadId && s.startNanos <= nanoTime && nanoTime <= s.endNanos) {
+                if (innermost == null || s.startNanos >= innermost.startNanos) {
+                    innermost = s;
+                }
+            }
+        }
+        return innermost == null ? OTHER : innermost.name;
+    }
+
+    /* pkg protected */ static String source(String className) {
+        var cl = Thread.currentThread().getContextClassLoader();
+        var url = cl == null ? null : cl.getResource(className.replace('.', '/') + ".class");
+        if (url == null) {
+            url = ClassLoader.getSystemResource(className.replace('.', '/') + ".class");
+        }
+        if (url == null) {
+            // e.g., lambdas, proxies or classes that have been generated by Guice
+            return "(generated)";
+        }
+        var s = url.toExternalForm();
+        var jarEnd = s.indexOf("!/");
+        if (jarEnd != -1) {
+            var jar = s.substring(0, jarEnd);
+            return jar.substring(jar.lastIndexOf('/') + 1);
+        }
+        if (s.startsWith("jrt:/")) {
+            var moduleEnd = s.indexOf('/', 5);
+            return moduleEnd == -1 ? s : s.substring(0, moduleEnd);
+        }
+        var classFile = className.replace('.', '/') + ".class";
+        return s.endsWith(classFile) ? s.substring(0, s.length() - classFile.length()) : s;
+    }
+
+    private static String table(Map<String, Integer> counts) {
+        var sorted = new ArrayList<>(counts.entrySet());
+        sorted.sort(Entry.<String, Integer>comparingByValue().reversed().thenComparing(Entry.comparingByKey()));
+        var sb = new StringBuilder();
+        for (var e : sorted) {
+            sb.append(format("\n  %6d  %s", e.getValue(), e.getKey()));
+        }
+        return sb.toString();
+    }
+
+    private static long epochNanos(Instant i) {
+        return i.getEpochSecond() * 1_000_000_000L + i.getNano();
+    }
+}
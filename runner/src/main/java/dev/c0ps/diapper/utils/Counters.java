@@ -0,0 +1,56 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dev.c0ps.diapper.ICounters;
+
+public class Counters implements ICounters {
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public void add(String name, long delta) {
+        counter(name).addAndGet(delta);
+    }
+
+    @Override
+    public void set(String name, long value) {
+        counter(name).set(value);
+    }
+
+    @Override
+    public long get(String name) {
+        var c = counters.get(name);
+        return c == null ? 0 : c.get();
+    }
+
+    public Map<String, Long> snapshot() {
+        var snapshot = new TreeMap<String, Long>();
+        for (var e : counters.entrySet()) {
+            snapshot.put(e.getKey(), e.getValue().get());
+        }
+        return snapshot;
+    }
+
+    private AtomicLong counter(String name) {
+        return counters.computeIfAbsent(name, n -> new AtomicLong());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs thread dumps when a run exceeds its deadline and repeats them in an
+ * interval (unless it is 0), so stuck progress becomes visible. If an exit code
+ * is configured, the VM is terminated after the first dump instead.
+ */
+public class DeadlineWatchdog {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeadlineWatchdog.class);
+
+    private final String runnable;
+    private final long deadlineMs;
+    private final Integer exitCode;
+    private final IntConsumer exit;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        var t = new Thread(r, "diapper-deadline");
+        t.setDaemon(true);
+        return t;
+    });
+    private int numDumps;
+
+    /* pkg protected */ DeadlineWatchdog(String runnable, long deadlineMs, Integer exitCode, IntConsumer exit) {
+        this.runnable = runnable;
+        this.deadlineMs = deadlineMs;
+        this.exitCode = exitCode;
+        this.exit = exit;
+    }
+
+    public static DeadlineWatchdog start(String runnable, long deadlineMs, long intervalMs, Integer exitCode) {
+        var watchdog = new DeadlineWatchdog(runnable, deadlineMs, exitCode, System::exit);
+        if (intervalMs > 0) {
+            watchdog.scheduler.scheduleAtFixedRate(watchdog::expire, deadlineMs, intervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            // only dump once
+            watchdog.scheduler.schedule(watchdog::expire, deadlineMs, TimeUnit.MILLISECONDS);
+        }
+        return watchdog;
+    }
+
+    /* pkg protected */ synchronized void expire() {
+        numDumps++;
+        LOG.warn("{} has exceeded its deadline of {} ms (dump #{}):\n{}", runnable, deadlineMs, numDumps, threadDump());
+        if (exitCode != null) {
+            LOG.error("Terminating the VM with exit code {} ...", exitCode);
+            exit.accept(exitCode);
+        }
+    }
+
+    /** Stops the watchdog and waits for a dump that is currently in progress. */
+    public void stop() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* pkg protected */ static String threadDump() {
+        var sb = new StringBuilder();
+        for (var info : ManagementFactory.getThreadMXBean().dumpAllThreads(true, true)) {
+            append(sb, info);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Similar to {@link ThreadInfo#toString()}, but includes all frames.
+     */
+    /* pkg protected */ static void append(StringBuilder sb, ThreadInfo info) {
+        sb.append('"').append(info.getThreadName()).append("\" #").append(info.getThreadId());
+        if (info.isDaemon()) {
+            sb.append(" daemon");
+        }
+        sb.append(' ').append(info.getThreadState());
+        if (info.getLockName() != null) {
+            sb.append(" on ").append(info.getLockName());
+        }
+        if (info.getLockOwnerName() != null) {
+            sb.append(" owned by \"").append(info.getLockOwnerName()).append("\" #").append(info.getLockOwnerId());
+        }
+        sb.append('\n');
+        var frames = info.getStackTrace();
+        for (var i = 0; i < frames.length; i++) {
+            sb.append("\tat ").append(frames[i]).append('\n');
+            if (i == 0 && info.getLockInfo() != null) {
+                sb.append("\t-  waiting on ").append(info.getLockInfo()).append('\n');
+            }
+            for (var m : info.getLockedMonitors()) {
+                if (m.getLockedStackDepth() == i) {
+                    sb.append("\t-  locked ").append(m).append('\n');
+                }
+            }
+        }
+        var synchronizers = info.getLockedSynchronizers();
+        if (synchronizers.length > 0) {
+            sb.append("\tLocked synchronizers:\n");
+            for (var s : synchronizers) {
+                sb.append("\t- ").append(s).append('\n');
+            }
+        }
+        sb.append('\n');
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.c0ps.diapper.JvmProfile;
+import dev.c0ps.diapper.JvmProfile.Gc;
+
+/**
+ * Translates a {@link JvmProfile} into VM flags and determines which flags of
+ * the current VM they replace. Flags are compared by name and value, so
+ * equivalent spellings (e.g., "-Xss1m" and "-Xss1024k") match. A flag of the
+ * current VM that sets the same option to another value overrides the profile.
+ */
+public class JvmProfileFlags {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JvmProfileFlags.class);
+    private static final Pattern X_FLAG = Pattern.compile("(-X[a-z]+)(\\d.*)");
+    private static final Pattern SIZE = Pattern.compile("(\\d+)([kKmMgGtT]?)");
+    private static final Pattern DECIMAL = Pattern.compile("\\d+(\\.\\d*)?");
+
+    private final List<String> flags = new ArrayList<>();
+    private final List<Predicate<String>> replaced = new ArrayList<>();
+
+    public JvmProfileFlags(JvmProfile profile) {
+        if (profile.maxRamPercentage() < 0 || profile.maxRamPercentage() > 100) {
+            throw new IllegalArgumentException("maxRamPercentage must be within (0, 100], or 0 to keep the default");
+        }
+        if (profile.tieredStopAtLevel() < 0 || profile.tieredStopAtLevel() > 4) {
+            throw new IllegalArgumentException("tieredStopAtLevel must be within [1, 4], or 0 to keep the default");
+        }
+        if (profile.maxRamPercentage() > 0) {
+            add(String.format(Locale.ROOT, "-XX:MaxRAMPercentage=%.1f", profile.maxRamPercentage()), //
+                    a -> a.startsWith("-XX:MaxRAMPercentage=") || a.startsWith("-Xmx") || a.startsWith("-XX:MaxHeapSize="));
+        }
+        if (profile.gc() != Gc.DEFAULT) {
+            add(profile.gc().flag, a -> a.startsWith("-XX:+Use") && a.endsWith("GC"));
+        }
+        if (!profile.cdsArchive().isEmpty()) {
+            add("-XX:SharedArchiveFile=" + profile.cdsArchive(), a -> a.startsWith("-XX:SharedArchiveFile="));
+        }
+        if (profile.tieredStopAtLevel() > 0) {
+            add("-XX:TieredStopAtLevel=" + profile.tieredStopAtLevel(), a -> a.startsWith("-XX:TieredStopAtLevel="));
+        }
+        for (var arg : profile.jvmArgs()) {
+            var name = name(arg);
+            add(arg, a -> name(a).equals(name));
+        }
+    }
+
+    private void add(String flag, Predicate<String> replaces) {
+        flags.add(flag);
+        replaced.add(replaces);
+    }
+
+    public List<String> flags() {
+        return flags;
+    }
+
+    public boolean isReplaced(String jvmArg) {
+        for (var r : replaced) {
+            if (r.test(jvmArg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Selects the flags of the profile for which the current VM has neither an
+     * equivalent nor an overriding flag.
+     */
+    public List<String> missing(List<String> jvmArgs) {
+        var missing = new ArrayList<String>();
+        for (var i = 0; i < flags.size(); i++) {
+            var flag = flags.get(i);
+            var isSet = false;
+            for (var arg : jvmArgs) {
+                if (replaced.get(i).test(arg)) {
+                    isSet = true;
+                    if (!isEquivalent(arg, flag)) {
+                        LOG.info("VM flag {} overrides {} of the JVM profile", arg, flag);
+                    }
+                }
+            }
+            if (!isSet) {
+                missing.add(flag);
+            }
+        }
+        return missing;
+    }
+
+    public boolean isSatisfiedBy(List<String> jvmArgs) {
+        return missing(jvmArgs).isEmpty();
+    }
+
+    /* pkg protected */ static boolean isEquivalent(String a, String b) {
+        return name(a).equals(name(b)) && normalize(value(a)).equals(normalize(value(b)));
+    }
+
+    /* pkg protected */ static String name(String arg) {
+        if (arg.startsWith("-XX:+") || arg.startsWith("-XX:-")) {
+            return "-XX:" + arg.substring(5);
+        }
+        var eq = arg.indexOf('=');
+        if ((arg.startsWith("-XX:") || arg.startsWith("-D")) && eq > 0) {
+            return arg.substring(0, eq);
+        }
+        var m = X_FLAG.matcher(arg);
+        return m.matches() ? m.group(1) : arg;
+    }
+
+    private static String value(String arg) {
+        if (arg.startsWith("-XX:+") || arg.startsWith("-XX:-")) {
+            return arg.substring(4, 5);
+        }
+        return arg.substring(name(arg).length()).replaceFirst("^=", "");
+    }
+
+    private static String normalize(String value) {
+        var m = SIZE.matcher(value);
+        if (m.matches()) {
+            var shift = m.group(2).isEmpty() ? 0 : "kmgt".indexOf(m.group(2).toLowerCase(Locale.ROOT)) + 1;
+            return new BigDecimal(m.group(1)).multiply(BigDecimal.valueOf(1L << (10 * shift))).toPlainString();
+        }
+        if (DECIMAL.matcher(value).matches()) {
+            return new BigDecimal(value).stripTrailingZeros().toPlainString();
+        }
+        return value;
+    }
+}
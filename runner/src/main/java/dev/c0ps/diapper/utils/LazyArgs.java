@@ -0,0 +1,98 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import com.google.inject.Binder;
+import com.google.inject.matcher.Matchers;
+import com.google.inject.spi.ElementSource;
+import com.google.inject.spi.ProvisionListener;
+
+import dev.c0ps.diapper.IInjectorConfig;
+
+/**
+ * Defers the parsing of args objects until a binding of a config that depends
+ * on them is provisioned for the first time. Configs receive args objects with
+ * default values, which are later parsed in place.
+ */
+public class LazyArgs implements IInjectorConfig, ProvisionListener {
+
+    private final BiConsumer<Class<?>, Object> parser;
+    private final Map<Class<?>, Object> deferred = new LinkedHashMap<>();
+    private final Map<Class<?>, Set<Class<?>>> configs = new LinkedHashMap<>();
+
+    public LazyArgs(BiConsumer<Class<?>, Object> parser) {
+        this.parser = parser;
+    }
+
+    public synchronized void defer(Class<?> paramType, Object argsObj) {
+        deferred.put(paramType, argsObj);
+    }
+
+    public synchronized void register(Class<?> config, Class<?> paramType) {
+        configs.computeIfAbsent(config, c -> new HashSet<>()).add(paramType);
+    }
+
+    public synchronized boolean isEmpty() {
+        return deferred.isEmpty();
+    }
+
+    public synchronized void parseNow(Class<?> paramType) {
+        if (deferred.containsKey(paramType)) {
+            parser.accept(paramType, deferred.get(paramType));
+            deferred.remove(paramType);
+        }
+    }
+
+    @Override
+    public void configure(Binder binder) {
+        binder.bindListener(Matchers.any(), this);
+    }
+
+    @Override
+    public <T> void onProvision(ProvisionInvocation<T> provision) {
+        // bindings of @Provides methods are declared by the method
+        var source = provision.getBinding().getSource();
+        if (source instanceof ElementSource) {
+            source = ((ElementSource) source).getDeclaringSource();
+        }
+        if (source instanceof Method) {
+            parseFor(((Method) source).getDeclaringClass());
+        }
+    }
+
+    /* pkg protected */ synchronized void parseFor(Class<?> declaringClass) {
+        if (deferred.isEmpty()) {
+            return;
+        }
+        var it = configs.entrySet().iterator();
+        while (it.hasNext()) {
+            var e = it.next();
+            if (declaringClass.isAssignableFrom(e.getKey())) {
+                for (var paramType : e.getValue()) {
+                    parseNow(paramType);
+                }
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static java.lang.String.format;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.management.JMException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * Watches the occupancy of the heap pools that support collection-usage
+ * thresholds (i.e., the old generation). When a pool is still above the
+ * threshold after a GC, a class histogram is logged and, optionally, a heap
+ * dump is written. Only one heap dump is written per run, as every dump is as
+ * large as the heap and forces a full GC.
+ */
+public class MemoryWatchdog implements NotificationListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MemoryWatchdog.class);
+    private static final int HISTOGRAM_LINES = 25;
+    private static final long MIN_REPORT_INTERVAL_MS = 60_000;
+
+    private final List<MemoryPoolMXBean> pools = new ArrayList<>();
+    private final double fraction;
+    private final File heapDumpDir;
+    private final long minReportIntervalMs;
+    private long lastReport;
+    private boolean isHeapDumped;
+
+    /* pkg protected */ MemoryWatchdog(double fraction, File heapDumpDir) {
+        this(fraction, heapDumpDir, MIN_REPORT_INTERVAL_MS);
+    }
+
+    /* pkg protected */ MemoryWatchdog(double fraction, File heapDumpDir, long minReportIntervalMs) {
+        this.fraction = fraction;
+        this.heapDumpDir = heapDumpDir;
+        this.minReportIntervalMs = minReportIntervalMs;
+        this.lastReport = -minReportIntervalMs;
+    }
+
+    public static MemoryWatchdog start(double fraction, File heapDumpDir) {
+        var watchdog = new MemoryWatchdog(fraction, heapDumpDir);
+        for (var pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            var max = pool.getUsage().getMax();
+            if (pool.getType() != MemoryType.HEAP || max <= 0 || !pool.isUsageThresholdSupported() || !pool.isCollectionUsageThresholdSupported()) {
+                continue;
+            }
+            var threshold = (long) (max * fraction);
+            pool.setUsageThreshold(threshold);
+            pool.setCollectionUsageThreshold(threshold);
+            watchdog.pools.add(pool);
+            LOG.info("Watching memory pool '{}' with a threshold of {} MB", pool.getName(), threshold / (1024 * 1024));
+        }
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(watchdog, null, null);
+        return watchdog;
+    }
+
+    public List<String> poolNames() {
+        var names = new ArrayList<String>();
+        for (var p : pools) {
+            names.add(p.getName());
+        }
+        return names;
+    }
+
+    @Override
+    public void handleNotification(Notification n, Object handback) {
+        var info = MemoryNotificationInfo.from((CompositeData) n.getUserData());
+        var usedMb = info.getUsage().getUsed() / (1024 * 1024);
+        var maxMb = info.getUsage().getMax() / (1024 * 1024);
+        if (MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(n.getType())) {
+            LOG.warn("Memory pool '{}' has exceeded its threshold ({} of {} MB)", info.getPoolName(), usedMb, maxMb);
+        } else if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(n.getType())) {
+            LOG.warn("Memory pool '{}' is still above its threshold after GC ({} of {} MB)", info.getPoolName(), usedMb, maxMb);
+            report();
+        }
+    }
+
+    /**
+     * Logs a class histogram, unless the last report is too recent, as the
+     * threshold can be exceeded after every GC. The heap is only dumped with the
+     * first report.
+     */
+    /* pkg protected */ synchronized void report() {
+        var now = System.currentTimeMillis();
+        if (now - lastReport < minReportIntervalMs) {
+            return;
+        }
+        lastReport = now;
+        LOG.warn("Class histogram:\n{}", histogram());
+        if (heapDumpDir != null && !isHeapDumped) {
+            isHeapDumped = true;
+            dumpHeap();
+        }
+    }
+
+    /* pkg protected */ static String histogram() {
+        try {
+            var name = new ObjectName("com.sun.management:type=DiagnosticCommand");
+            var args = new Object[] { new String[0] };
+            var sig = new String[] { String[].class.getName() };
+            var out = (String) ManagementFactory.getPlatformMBeanServer().invoke(name, "gcClassHistogram", args, sig);
+            var lines = out.split("\n");
+            if (lines.length <= HISTOGRAM_LINES) {
+                return out;
+            }
+            var sb = new StringBuilder();
+            for (var i = 0; i < HISTOGRAM_LINES; i++) {
+                sb.append(lines[i]).append('\n');
+            }
+            return sb.append(format("... (%d more lines)", lines.length - HISTOGRAM_LINES)).toString();
+        } catch (JMException e) {
+            return format("(not available: %s)", e.getMessage());
+        }
+    }
+
+    /* pkg protected */ File dumpHeap() {
+        heapDumpDir.mkdirs();
+        var file = new File(heapDumpDir, format(Locale.ROOT, "heap-%d-%d.hprof", ProcessHandle.current().pid(), System.currentTimeMillis()));
+        try {
+            ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class).dumpHeap(file.getAbsolutePath(), true);
+            LOG.warn("Heap dump has been written to {}", file);
+            return file;
+        } catch (IOException e) {
+            LOG.error("Cannot write heap dump to {} ({})", file, e.getMessage());
+            return null;
+        }
+    }
+
+    public void stop() {
+        try {
+            ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(this);
+        } catch (JMException e) {
+            // was not registered
+        }
+        for (var pool : pools) {
+            pool.setUsageThreshold(0);
+            pool.setCollectionUsageThreshold(0);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static java.lang.String.format;
+
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Binding;
+import com.google.inject.ConfigurationException;
+import com.google.inject.ImplementedBy;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.ProvidedBy;
+import com.google.inject.TypeLiteral;
+import com.google.inject.spi.DefaultBindingScopingVisitor;
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.ElementSource;
+import com.google.inject.spi.Elements;
+import com.google.inject.spi.HasDependencies;
+import com.google.inject.spi.InjectionPoint;
+import com.google.inject.spi.InstanceBinding;
+import com.google.inject.spi.ProviderLookup;
+import com.google.inject.spi.UntargettedBinding;
+
+/**
+ * Records the elements of all modules and determines which modules are needed
+ * to provision a root class. A module is kept when it binds a key that is
+ * reachable from the root, and then all dependencies of its bindings must be
+ * satisfied as well. Modules that contribute anything other than plain bindings
+ * (e.g., listeners, scopes, injection requests, or multibinder entries) are
+ * always kept.
+ */
+public class ModulePruner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ModulePruner.class);
+    private static final String UNKNOWN = "<unknown>";
+    private static final Set<String> PROVIDER_TYPES = Set.of( //
+            "com.google.inject.Provider", //
+            "jakarta.inject.Provider", //
+            "javax.inject.Provider");
+
+    private final Class<?> root;
+    private final List<Element> elements;
+    private final Map<Element, String> owners = new HashMap<>();
+    private final Map<String, List<Element>> modules = new LinkedHashMap<>();
+    private final Map<Key<?>, String> bindings = new HashMap<>();
+    private final Map<String, String> reasons = new LinkedHashMap<>();
+
+    private final LinkedList<Key<?>> queue = new LinkedList<>();
+    private final Set<Key<?>> seen = new HashSet<>();
+
+    public ModulePruner(Iterable<? extends Module> modules, Class<?> root) {
+        this(modules, Elements.getElements(modules), root);
+    }
+
+    public ModulePruner(Iterable<? extends Module> modules, List<Element> elements, Class<?> root) {
+        this.root = root;
+        this.elements = elements;
+        for (var m : modules) {
+            // include modules without any elements in the report
+            this.modules.put(m.getClass().getName(), new ArrayList<>());
+        }
+        for (var e : elements) {
+            var owner = owner(e);
+            owners.put(e, owner);
+            this.modules.computeIfAbsent(owner, o -> new ArrayList<>()).add(e);
+            if (e instanceof Binding) {
+                bindings.put(((Binding<?>) e).getKey(), owner);
+            }
+        }
+        analyze();
+    }
+
+    public Module all() {
+        return Elements.getModule(elements);
+    }
+
+    public Module pruned() {
+        var kept = new ArrayList<Element>();
+        for (var e : elements) {
+            if (reasons.containsKey(owners.get(e))) {
+                kept.add(e);
+            }
+        }
+        return Elements.getModule(kept);
+    }
+
+    public Set<String> kept() {
+        return reasons.keySet();
+    }
+
+    public Set<String> dropped() {
+        var dropped = new HashSet<>(modules.keySet());
+        dropped.removeAll(reasons.keySet());
+        return dropped;
+    }
+
+    public String reason(String module) {
+        return reasons.get(module);
+    }
+
+    public void explain() {
+        LOG.info("Keeping {} of {} modules to provision {}:", reasons.size(), modules.size(), root.getName());
+        for (var module : modules.keySet()) {
+            if (reasons.containsKey(module)) {
+                LOG.info("  kept    {} ({})", module, reasons.get(module));
+            } else {
+                LOG.info("  dropped {} (no reachable binding)", module);
+            }
+        }
+    }
+
+    private void analyze() {
+        for (var module : modules.keySet()) {
+            var reason = alwaysKept(module);
+            if (reason != null) {
+                keep(module, reason);
+            }
+        }
+        enqueue(Key.get(root));
+        while (!queue.isEmpty()) {
+            var key = queue.removeFirst();
+            if (bindings.containsKey(key)) {
+                keep(bindings.get(key), format("binds %s", key));
+                continue;
+            }
+            if (key.getTypeLiteral().getRawType() == Injector.class) {
+                // the injector can provision anything on demand
+                for (var module : modules.keySet()) {
+                    keep(module, format("%s depends on the Injector", root.getName()));
+                }
+                return;
+            }
+            if (key.getAnnotationType() == null) {
+                enqueueJitDependencies(key.getTypeLiteral());
+            }
+        }
+    }
+
+    private String alwaysKept(String module) {
+        if (UNKNOWN.equals(module)) {
+            return "unknown source";
+        }
+        for (var e : modules.get(module)) {
+            if (!(e instanceof Binding) && !(e instanceof ProviderLookup)) {
+                return format("registers %s", e.getClass().getSimpleName());
+            }
+            if (!(e instanceof Binding)) {
+                continue;
+            }
+            var b = (Binding<?>) e;
+            var annotation = b.getKey().getAnnotationType();
+            if (annotation != null && annotation.getName().startsWith("com.google.inject.internal.")) {
+                return "contributes to a multibinder";
+            }
+            // instances exist already and are only injected when their module is kept
+            if (!(b instanceof InstanceBinding) && isEagerSingleton(b)) {
+                return format("binds eager singleton %s", b.getKey());
+            }
+        }
+        return null;
+    }
+
+    private void keep(String module, String reason) {
+        if (reasons.containsKey(module)) {
+            return;
+        }
+        reasons.put(module, reason);
+        for (var e : modules.get(module)) {
+            if (e instanceof HasDependencies) {
+                enqueue(((HasDependencies) e).getDependencies());
+            } else if (e instanceof ProviderLookup) {
+                enqueue(((ProviderLookup<?>) e).getDependency().getKey());
+            }
+            if (e instanceof UntargettedBinding) {
+                enqueueJitDependencies(((Binding<?>) e).getKey().getTypeLiteral());
+            }
+        }
+    }
+
+    private void enqueueJitDependencies(TypeLiteral<?> type) {
+        var raw = type.getRawType();
+        var implementedBy = raw.getAnnotation(ImplementedBy.class);
+        if (implementedBy != null) {
+            enqueue(Key.get(implementedBy.value()));
+            return;
+        }
+        var providedBy = raw.getAnnotation(ProvidedBy.class);
+        if (providedBy != null) {
+            Class<?> provider = providedBy.value();
+            enqueue(Key.get(provider));
+            return;
+        }
+        if (raw.isInterface() || Modifier.isAbstract(raw.getModifiers()) || raw.isPrimitive() || raw.isArray()) {
+            return;
+        }
+        try {
+            enqueue(InjectionPoint.forConstructorOf(type).getDependencies());
+        } catch (ConfigurationException e) {
+            // not constructable, Guice will report this on injector creation
+        }
+        try {
+            for (var ip : InjectionPoint.forInstanceMethodsAndFields(type)) {
+                enqueue(ip.getDependencies());
+            }
+        } catch (ConfigurationException e) {
+            // see above
+        }
+    }
+
+    private void enqueue(Collection<Dependency<?>> deps) {
+        for (var d : deps) {
+            enqueue(d.getKey());
+        }
+    }
+
+    private void enqueue(Key<?> key) {
+        var k = unwrapProvider(key);
+        if (seen.add(k)) {
+            queue.add(k);
+        }
+    }
+
+    private static Key<?> unwrapProvider(Key<?> key) {
+        var type = key.getTypeLiteral().getType();
+        if (type instanceof ParameterizedType) {
+            var pt = (ParameterizedType) type;
+            var raw = (Class<?>) pt.getRawType();
+            if (PROVIDER_TYPES.contains(raw.getName())) {
+                return key.ofType(pt.getActualTypeArguments()[0]);
+            }
+        }
+        return key;
+    }
+
+    private static boolean isEagerSingleton(Binding<?> b) {
+        return b.acceptScopingVisitor(new DefaultBindingScopingVisitor<Boolean>() {
+            @Override
+            public Boolean visitEagerSingleton() {
+                return true;
+            }
+
+            @Override
+            protected Boolean visitOther() {
+                return false;
+            }
+        });
+    }
+
+    private static String owner(Element e) {
+        var source = e.getSource();
+        if (source instanceof ElementSource) {
+            var names = ((ElementSource) source).getModuleClassNames();
+            if (!names.isEmpty()) {
+                // the last module is the one that has been passed to the injector
+                return names.get(names.size() - 1);
+            }
+        }
+        return UNKNOWN;
+    }
+}
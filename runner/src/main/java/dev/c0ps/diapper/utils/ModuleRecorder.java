@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.inject.Module;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
+
+/**
+ * Records the elements of modules, i.e., runs their "configure" methods, outside
+ * of the injector. The recorded elements keep their sources, so an injector
+ * that is created from them is identical to one created from the modules.
+ */
+public class ModuleRecorder {
+
+    private ModuleRecorder() {
+        // do not instantiate
+    }
+
+    public static List<Element> record(Collection<? extends Module> modules, ExecutorService executor) {
+        if (executor == null || modules.size() < 2) {
+            return Elements.getElements(modules);
+        }
+        var futures = new LinkedList<Future<List<Element>>>();
+        try {
+            for (var m : modules) {
+                futures.add(executor.submit(() -> Elements.getElements(m)));
+            }
+            var elements = new ArrayList<Element>();
+            for (var f : futures) {
+                elements.addAll(ThreadPools.await(f));
+            }
+            return elements;
+        } finally {
+            for (var f : futures) {
+                f.cancel(true);
+            }
+        }
+    }
+}
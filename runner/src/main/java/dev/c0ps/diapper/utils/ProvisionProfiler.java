@@ -0,0 +1,168 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static java.lang.String.format;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Binding;
+import com.google.inject.Key;
+import com.google.inject.spi.DefaultBindingScopingVisitor;
+import com.google.inject.spi.ProvisionListener;
+
+/**
+ * Counts the provisions per binding and measures their (inclusive) duration,
+ * to find expensive bindings that should be scoped, e.g., as a singleton.
+ */
+public class ProvisionProfiler implements ProvisionListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProvisionProfiler.class);
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    private final Map<Key<?>, Stats> stats = new ConcurrentHashMap<>();
+    private final int top;
+    private final long countThreshold;
+    private final long slowNanos;
+
+    public ProvisionProfiler(int top, long countThreshold, long slowMs) {
+        this.top = top;
+        this.countThreshold = countThreshold;
+        this.slowNanos = slowMs * 1_000_000;
+    }
+
+    @Override
+    public <T> void onProvision(ProvisionInvocation<T> provision) {
+        var start = System.nanoTime();
+        try {
+            provision.provision();
+        } finally {
+            var duration = System.nanoTime() - start;
+            var binding = provision.getBinding();
+            stats.computeIfAbsent(binding.getKey(), k -> new Stats(k, isUnscoped(binding))).add(duration);
+        }
+    }
+
+    public List<Stats> stats() {
+        var sorted = new ArrayList<>(stats.values());
+        sorted.sort(Comparator.comparingLong(Stats::totalNanos).reversed());
+        return sorted;
+    }
+
+    /**
+     * Logs the bindings with the highest cumulative provision time and warns about
+     * unscoped bindings that are provisioned often or slowly.
+     */
+    public void report() {
+        var all = stats();
+        if (all.isEmpty()) {
+            return;
+        }
+        var provisions = 0L;
+        for (var s : all) {
+            provisions += s.count();
+        }
+        var table = new StringBuilder();
+        for (var s : all.subList(0, Math.min(top, all.size()))) {
+            table.append(format(Locale.ROOT, "\n  %9d x %10.1f ms (max %8.1f ms)  %s", s.count(), s.totalNanos() / NANOS_PER_MS, s.maxNanos() / NANOS_PER_MS, describe(s.key)));
+        }
+        LOG.info("Provisioned {} bindings {} times, top {} by cumulative time:{}", all.size(), provisions, Math.min(top, all.size()), table);
+
+        for (var s : all) {
+            if (isOften(s)) {
+                LOG.warn("Unscoped binding {} has been provisioned {} times, consider a scope like @Singleton", describe(s.key), s.count());
+            }
+            if (isSlow(s)) {
+                LOG.warn("Unscoped binding {} took up to {} ms per provision, consider a scope like @Singleton", describe(s.key), format(Locale.ROOT, "%.1f", s.maxNanos() / NANOS_PER_MS));
+            }
+        }
+    }
+
+    /* pkg protected */ boolean isOften(Stats s) {
+        return s.isUnscoped && s.count() >= countThreshold;
+    }
+
+    /* pkg protected */ boolean isSlow(Stats s) {
+        return s.isUnscoped && s.maxNanos() >= slowNanos;
+    }
+
+    private static boolean isUnscoped(Binding<?> binding) {
+        return binding.acceptScopingVisitor(new DefaultBindingScopingVisitor<Boolean>() {
+            @Override
+            public Boolean visitNoScoping() {
+                return true;
+            }
+
+            @Override
+            protected Boolean visitOther() {
+                return false;
+            }
+        });
+    }
+
+    private static String describe(Key<?> key) {
+        var type = key.getTypeLiteral().toString();
+        if (key.getAnnotation() != null) {
+            return key.getAnnotation() + " " + type;
+        }
+        if (key.getAnnotationType() != null) {
+            return "@" + key.getAnnotationType().getName() + " " + type;
+        }
+        return type;
+    }
+
+    public static class Stats {
+
+        public final Key<?> key;
+        public final boolean isUnscoped;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Stats(Key<?> key, boolean isUnscoped) {
+            this.key = key;
+            this.isUnscoped = isUnscoped;
+        }
+
+        private void add(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public long totalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long maxNanos() {
+            return maxNanos.get();
+        }
+    }
+}
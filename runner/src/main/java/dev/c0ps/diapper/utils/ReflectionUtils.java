@@ -21,46 +21,294 @@ import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
-import org.reflections.Reflections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.inject.Binder;
+
 import dev.c0ps.diapper.IInjectorConfig;
+import dev.c0ps.diapper.InjectorConfig;
+import dev.c0ps.diapper.InjectorConfigBase;
+import dev.c0ps.diapper.jfr.ArgsParseEvent;
+import dev.c0ps.diapper.jfr.ModuleLoadEvent;
+import dev.c0ps.diapper.jfr.ScanEvent;
 
 public class ReflectionUtils {
 
     private static final Logger LOG = LoggerFactory.getLogger(ReflectionUtils.class);
-    /* pkg protected */ static final Map<Class<?>, Object> PARSED_ARGS = new HashMap<>();
+    /* pkg protected */ static final Map<Class<?>, Object> PARSED_ARGS = new ConcurrentHashMap<>();
 
     private final Class<? extends Annotation> markerAnnotation;
     private final ArgsParser argsParser;
+    private final ClassLoader classLoader;
+    private final ClassIndex index;
+    private final AnnotationScanner scanner;
+    private ScanCache scanCache;
+    private int scanThreads = 1;
+    private LazyArgs lazyArgs;
+    private ExecutorService startupExecutor;
+    private StartupTimer timer = new StartupTimer();
 
     public ReflectionUtils(Class<? extends Annotation> markerAnnotation, ArgsParser argsParser) {
         this.markerAnnotation = markerAnnotation;
         this.argsParser = argsParser;
+        this.classLoader = classLoader();
+        // the build-time index only covers the default marker
+        this.index = markerAnnotation == InjectorConfig.class ? ClassIndex.load(classLoader) : new ClassIndex();
+        this.scanner = new AnnotationScanner(markerAnnotation);
+    }
+
+    /**
+     * Forgets all parsed args, e.g., between benchmark iterations. The cache is
+     * keyed by the args classes, so it keeps their class loaders alive.
+     */
+    public static void clearCaches() {
+        PARSED_ARGS.clear();
+    }
+
+    public void setScanCache(ScanCache scanCache) {
+        this.scanCache = scanCache;
+    }
+
+    public void setScanThreads(int scanThreads) {
+        this.scanThreads = scanThreads;
+    }
+
+    public void setStartupExecutor(ExecutorService startupExecutor) {
+        this.startupExecutor = startupExecutor;
+    }
+
+    public void setStartupTimer(StartupTimer timer) {
+        this.timer = timer;
+    }
+
+    public void setLazyArgs(boolean isLazy) {
+        this.lazyArgs = isLazy ? new LazyArgs(this::parseInto) : null;
     }
 
     public Set<IInjectorConfig> loadModules(String... basePkgs) {
-        var modules = new HashSet<IInjectorConfig>();
-        for (var basePkg : basePkgs) {
+        var pkgs = new LinkedHashSet<String>(Arrays.asList(basePkgs));
+        for (var basePkg : pkgs) {
             LOG.info("Searching for @{} in package {} ...", markerAnnotation.getSimpleName(), basePkg);
-            var ref = new Reflections(basePkg);
-            for (Class<?> cl : ref.getTypesAnnotatedWith(markerAnnotation)) {
-                var m = loadModule(cl, argsParser);
+        }
+        var modules = startupExecutor == null ? loadSequentially(pkgs) : loadConcurrently(pkgs);
+        if (lazyArgs != null && !lazyArgs.isEmpty()) {
+            modules.add(lazyArgs);
+        }
+        return modules;
+    }
+
+    private Set<IInjectorConfig> loadSequentially(Set<String> basePkgs) {
+        var names = new TreeSet<String>();
+        findAnnotatedTypes(basePkgs, names::addAll);
+        var modules = new HashSet<IInjectorConfig>();
+        for (var name : names) {
+            var m = loadModule(name);
+            if (m != null) {
+                modules.add(m);
+            }
+        }
+        return modules;
+    }
+
+    /**
+     * Constructs every config as soon as it has been found, while the remaining
+     * roots are still being scanned. The first failure cancels all pending work.
+     */
+    private Set<IInjectorConfig> loadConcurrently(Set<String> basePkgs) {
+        var futures = new LinkedList<Future<IInjectorConfig>>();
+        var done = new ExecutorCompletionService<IInjectorConfig>(startupExecutor);
+        var submitted = new HashSet<String>();
+        var numDone = new AtomicInteger();
+        try {
+            findAnnotatedTypes(basePkgs, names -> {
+                for (var name : names) {
+                    if (submitted.add(name)) {
+                        futures.add(done.submit(() -> loadModule(name)));
+                    }
+                }
+                // fail fast on configs that have failed in the meantime
+                for (var f = done.poll(); f != null; f = done.poll()) {
+                    ThreadPools.await(f);
+                    numDone.incrementAndGet();
+                }
+            });
+            while (numDone.get() < futures.size()) {
+                ThreadPools.await(done.take());
+                numDone.incrementAndGet();
+            }
+            var modules = new HashSet<IInjectorConfig>();
+            for (var f : futures) {
+                var m = ThreadPools.await(f);
                 if (m != null) {
                     modules.add(m);
                 }
             }
+            return modules;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading modules", e);
+        } finally {
+            for (var f : futures) {
+                f.cancel(true);
+            }
+        }
+    }
+
+    private void findAnnotatedTypes(Set<String> basePkgs, Consumer<Set<String>> sink) {
+        var names = new TreeSet<String>();
+        for (var basePkg : basePkgs) {
+            names.addAll(index.getConfigs(basePkg));
+        }
+        sink.accept(names);
+
+        // every class path root is only scanned once, even if it contains several packages
+        var urls = new LinkedHashMap<String, URL>();
+        for (var basePkg : basePkgs) {
+            for (var url : AnnotationScanner.findRoots(basePkg, classLoader, ReflectionUtils.class.getClassLoader())) {
+                if (!index.isIndexed(url)) {
+                    urls.putIfAbsent(ClassIndex.normalize(url.toExternalForm()), url);
+                }
+            }
+        }
+        scanAll(urls.values(), basePkgs, sink);
+    }
+
+    /**
+     * Scans all roots and passes the results of each root to the sink, which is
+     * always called on the calling thread.
+     */
+    private void scanAll(Collection<URL> urls, Set<String> basePkgs, Consumer<Set<String>> sink) {
+        var numThreads = Math.min(scanThreads, urls.size());
+        if (numThreads < 2) {
+            for (var url : urls) {
+                sink.accept(scanRoot(url, basePkgs));
+            }
+            return;
+        }
+
+        var pool = ThreadPools.newPool("diapper-scan", numThreads);
+        try {
+            var done = new ExecutorCompletionService<Set<String>>(pool);
+            for (var url : urls) {
+                done.submit(() -> scanRoot(url, basePkgs));
+            }
+            for (var i = 0; i < urls.size(); i++) {
+                sink.accept(ThreadPools.await(done.take()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning the class path", e);
+        } finally {
+            pool.shutdownNow();
         }
-        return modules;
     }
 
-    private static IInjectorConfig loadModule(Class<?> cl, ArgsParser args) {
+    private Set<String> scanRoot(URL url, Set<String> basePkgs) {
+        if (scanCache == null) {
+            return scan(url, basePkgs);
+        }
+        var names = new TreeSet<String>();
+        var missing = new TreeSet<String>();
+        for (var basePkg : basePkgs) {
+            var cached = scanCache.get(url, basePkg);
+            if (cached == null) {
+                missing.add(basePkg);
+            } else {
+                names.addAll(cached);
+            }
+        }
+        if (!missing.isEmpty()) {
+            var start = System.currentTimeMillis();
+            var found = scan(url, missing);
+            var duration = System.currentTimeMillis() - start;
+            for (var basePkg : missing) {
+                scanCache.put(url, basePkg, filter(found, basePkg), duration);
+            }
+            names.addAll(found);
+        }
+        return names;
+    }
+
+    private static Set<String> filter(Set<String> names, String basePkg) {
+        var prefix = basePkg.isEmpty() ? "" : basePkg + ".";
+        var filtered = new TreeSet<String>();
+        for (var name : names) {
+            if (name.startsWith(prefix)) {
+                filtered.add(name);
+            }
+        }
+        return filtered;
+    }
+
+    private Set<String> scan(URL url, Set<String> basePkgs) {
+        var event = new ScanEvent();
+        event.begin();
+        var start = System.nanoTime();
+        try {
+            var found = scanner.scan(url, basePkgs);
+            event.found = found.size();
+            return found;
+        } finally {
+            event.root = url.toExternalForm();
+            event.packages = String.join(", ", basePkgs);
+            event.commit();
+            // all packages are scanned in one pass, so only the root as a whole has been measured
+            timer.add("scan " + event.root, System.nanoTime() - start);
+            timer.span("scan " + event.root, "scan", start, Map.of("packages", event.packages));
+        }
+    }
+
+    private static ClassLoader classLoader() {
+        var cl = Thread.currentThread().getContextClassLoader();
+        return cl != null ? cl : ReflectionUtils.class.getClassLoader();
+    }
+
+    private IInjectorConfig loadModule(String name) {
+        var event = new ModuleLoadEvent();
+        event.begin();
+        try {
+            return timer.time("construct " + name, () -> loadModuleUntimed(name));
+        } finally {
+            event.config = name;
+            event.commit();
+        }
+    }
+
+    private IInjectorConfig loadModuleUntimed(String name) {
+        Class<?> cl;
+        try {
+            cl = Class.forName(name, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            LOG.warn("Skipping class {}, which cannot be loaded ({})", name, e.getClass().getName());
+            return null;
+        }
+        // a stale index might still contain classes that are no longer annotated
+        if (index.isConfig(name) && !cl.isAnnotationPresent(markerAnnotation)) {
+            LOG.warn("Skipping class {}, which is not annotated with @{}", name, markerAnnotation.getSimpleName());
+            return null;
+        }
+        return loadModule(cl);
+    }
+
+    private IInjectorConfig loadModule(Class<?> cl) {
         LOG.info("Loading {} ...", cl.getName());
         if (!IInjectorConfig.class.isAssignableFrom(cl)) {
             LOG.error("Class {} does not implement {}", cl.getName(), IInjectorConfig.class.getName());
@@ -81,10 +329,11 @@ public class ReflectionUtils {
                 return init.newInstance();
             }
 
+            var isLazy = lazyArgs != null && canBeLazy(cl);
             var argObjs = new Object[parameterCount];
             for (var i = 0; i < parameterCount; i++) {
                 var paramType = init.getParameters()[i].getType();
-                var argObj = parse(args, paramType);
+                var argObj = isLazy ? createLazily(cl, paramType) : parse(paramType);
                 argObjs[i] = argObj;
             }
             return init.newInstance(argObjs);
@@ -101,21 +350,65 @@ public class ReflectionUtils {
         }
     }
 
-    private static Object parse(ArgsParser ap, Class<?> paramType) {
-        if (PARSED_ARGS.containsKey(paramType)) {
-            return PARSED_ARGS.get(paramType);
+    /** Parses the args object of the given type, once per type. */
+    public Object parse(Class<?> paramType) {
+        // configs that share an args type might be loaded concurrently
+        var args = PARSED_ARGS.computeIfAbsent(paramType, t -> {
+            var event = new ArgsParseEvent();
+            event.begin();
+            var a = argsParser.parse(t);
+            event.type = t.getName();
+            event.commit();
+            logParsed(t, a);
+            return a;
+        });
+        if (lazyArgs != null) {
+            // a lazy config might have deferred the parsing before
+            lazyArgs.parseNow(paramType);
+        }
+        return args;
+    }
+
+    private Object createLazily(Class<?> config, Class<?> paramType) {
+        var args = PARSED_ARGS.computeIfAbsent(paramType, t -> {
+            LOG.debug("Deferring the parsing of {} ...", t.getName());
+            var a = argsParser.create(t);
+            lazyArgs.defer(t, a);
+            return a;
+        });
+        lazyArgs.register(config, paramType);
+        return args;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void parseInto(Class<T> paramType, Object args) {
+        var event = new ArgsParseEvent();
+        event.begin();
+        argsParser.parse(paramType, (T) args);
+        event.type = paramType.getName();
+        event.commit();
+        logParsed(paramType, args);
+    }
+
+    /**
+     * Lazy parsing is only safe for configs that do not override "configure", as
+     * provider methods are the only place in which args can be accessed then.
+     */
+    private static boolean canBeLazy(Class<?> cl) {
+        try {
+            return cl.getMethod("configure", Binder.class).getDeclaringClass() == InjectorConfigBase.class;
+        } catch (NoSuchMethodException e) {
+            return false;
         }
-        var args = ap.parse(paramType);
-        PARSED_ARGS.put(paramType, args);
+    }
 
+    private static void logParsed(Class<?> paramType, Object args) {
         if (hasToStringImpl(paramType)) {
             LOG.info("Parsed {}:\n{}", paramType.getName(), args);
         } else {
             String asd = reflectionToString(args, MULTI_LINE_STYLE);
             LOG.info("Parsed {}", asd);
         }
-
-        return args;
     }
 
     private static boolean hasToStringImpl(Class<?> paramType) {
@@ -129,6 +422,19 @@ public class ReflectionUtils {
         return true;
     }
 
+    /**
+     * Loads the class of the runnable without initializing it, so it can be found
+     * faster later on. Failures are only reported by
+     * {@link #findRunnableClass(String)}.
+     */
+    public void preloadRunnableClass(String name) {
+        try {
+            Class.forName(name, false, ReflectionUtils.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            // reported when the class is actually needed
+        }
+    }
+
     public Class<Runnable> findRunnableClass(String name) {
         try {
             var c = Class.forName(name);
@@ -141,6 +447,9 @@ public class ReflectionUtils {
             return pc;
         } catch (ClassNotFoundException e) {
             LOG.error("Class cannot be found: {}", name);
+            if (!index.getRunnables().isEmpty()) {
+                LOG.info("Known runnables: {}", String.join(", ", index.getRunnables()));
+            }
             System.exit(1);
         }
         return null;
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Starts the current application again in a child VM, e.g., to apply VM flags
+ * that cannot be changed at runtime.
+ */
+public class Relauncher {
+
+    private static final int TERMINATION_TIMEOUT_S = 10;
+
+    private Relauncher() {
+        // do not instantiate
+    }
+
+    public static List<String> jvmArgs() {
+        return ManagementFactory.getRuntimeMXBean().getInputArguments();
+    }
+
+    public static boolean hasJvmArg(String prefix) {
+        for (var arg : jvmArgs()) {
+            if (arg.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the command that starts the current application with the same class
+     * path and main class. The given VM args are added to the current ones, of
+     * which all dropped ones are removed.
+     */
+    public static List<String> command(List<String> extraJvmArgs, Predicate<String> isDropped, String[] rawArgs) {
+        var cmd = new ArrayList<String>();
+        cmd.add(javaExecutable());
+        for (var arg : jvmArgs()) {
+            if (!isDropped.test(arg)) {
+                cmd.add(arg);
+            }
+        }
+        cmd.addAll(extraJvmArgs);
+        cmd.addAll(mainCommand(System.getProperty("sun.java.command", ""), System.getProperty("java.class.path", "")));
+        cmd.addAll(Arrays.asList(rawArgs));
+        return cmd;
+    }
+
+    /**
+     * Selects the class path and main class (or jar) of the current VM. The jar
+     * path is taken from the class path, because it might contain spaces, which
+     * makes the "sun.java.command" that joins it with the raw args ambiguous. A
+     * main class cannot contain spaces, so it is the first token of the command.
+     */
+    /* pkg protected */ static List<String> mainCommand(String javaCommand, String classPath) {
+        if (classPath.endsWith(".jar") && (javaCommand.equals(classPath) || javaCommand.startsWith(classPath + " "))) {
+            return List.of("-jar", classPath);
+        }
+        var mainClass = javaCommand.split(" ", 2)[0];
+        if (mainClass.isEmpty()) {
+            throw new IllegalStateException("Cannot determine the main class of the current VM");
+        }
+        return List.of("-cp", classPath, mainClass);
+    }
+
+    /**
+     * Runs the command with the IO of the current VM and returns its exit code.
+     * When the current VM is terminated, the child is terminated as well.
+     */
+    public static int run(List<String> command) {
+        try {
+            var p = new ProcessBuilder(command).inheritIO().start();
+            var hook = new Thread(() -> terminate(p), "diapper-relaunch-hook");
+            Runtime.getRuntime().addShutdownHook(hook);
+            try {
+                return p.waitFor();
+            } finally {
+                removeShutdownHook(hook);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot start child VM", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for child VM", e);
+        }
+    }
+
+    private static void terminate(Process p) {
+        p.destroy();
+        try {
+            if (!p.waitFor(TERMINATION_TIMEOUT_S, TimeUnit.SECONDS)) {
+                p.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            p.destroyForcibly();
+        }
+    }
+
+    private static void removeShutdownHook(Thread hook) {
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            // the VM is already shutting down, the hook takes care of the child
+        }
+    }
+
+    private static String javaExecutable() {
+        return ProcessHandle.current().info().command() //
+                .orElse(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+    }
+}
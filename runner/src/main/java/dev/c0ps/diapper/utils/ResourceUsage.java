@@ -0,0 +1,240 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Accounts the resources that have been used by a run. Threads that have
+ * terminated before the end of the run cannot be accounted, so the CPU time and
+ * allocations per thread only cover threads that are still alive. The peak heap
+ * is the highest total heap usage right before a GC or at the start or the end
+ * of the run, because the pools of the heap reach their peaks at different
+ * times.
+ */
+public class ResourceUsage implements NotificationListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ResourceUsage.class);
+    private static final int NUM_THREADS = 10;
+    private static final double NANOS_PER_MS = 1_000_000.0;
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private final com.sun.management.ThreadMXBean threads = threadBean();
+    private final long startNanos = System.nanoTime();
+    private final long startCpu = processCpuNanos();
+    private final long startGcCount;
+    private final long startGcMs;
+    private final Map<Long, long[]> startThreads = new HashMap<>();
+    private final Set<String> heapPools = new HashSet<>();
+    private final AtomicLong peakHeapBytes = new AtomicLong(heapUsed());
+
+    private ResourceUsage() {
+        var gc = gc();
+        startGcCount = gc[0];
+        startGcMs = gc[1];
+        for (var pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+            }
+        }
+        for (var bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter) {
+                ((NotificationEmitter) bean).addNotificationListener(this, null, null);
+            }
+        }
+        threads.resetPeakThreadCount();
+        var ids = threads.getAllThreadIds();
+        var cpu = threads.getThreadCpuTime(ids);
+        var allocated = threads.getThreadAllocatedBytes(ids);
+        for (var i = 0; i < ids.length; i++) {
+            startThreads.put(ids[i], new long[] { Math.max(0, cpu[i]), Math.max(0, allocated[i]) });
+        }
+    }
+
+    public static ResourceUsage start() {
+        return new ResourceUsage();
+    }
+
+    public Summary stop() {
+        var s = new Summary();
+        s.wallNanos = System.nanoTime() - startNanos;
+        var cpu = processCpuNanos();
+        s.cpuNanos = cpu < 0 || startCpu < 0 ? -1 : cpu - startCpu;
+        var gc = gc();
+        s.gcCount = gc[0] - startGcCount;
+        s.gcMs = gc[1] - startGcMs;
+        for (var bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) bean).removeNotificationListener(this);
+                } catch (ListenerNotFoundException e) {
+                    // not registered
+                }
+            }
+        }
+        s.peakHeapBytes = peakHeapBytes.accumulateAndGet(heapUsed(), Math::max);
+        s.peakThreads = threads.getPeakThreadCount();
+
+        var ids = threads.getAllThreadIds();
+        var infos = threads.getThreadInfo(ids);
+        var cpus = threads.getThreadCpuTime(ids);
+        var allocated = threads.getThreadAllocatedBytes(ids);
+        for (var i = 0; i < ids.length; i++) {
+            if (infos[i] == null) {
+                // terminated in the meantime
+                continue;
+            }
+            var start = startThreads.getOrDefault(ids[i], new long[2]);
+            var t = new ThreadUsage(infos[i].getThreadName(), Math.max(0, cpus[i] - start[0]), Math.max(0, allocated[i] - start[1]));
+            s.allocatedBytes += t.allocatedBytes;
+            s.threads.add(t);
+        }
+        s.threads.sort(Comparator.comparingLong((ThreadUsage t) -> t.cpuNanos).reversed());
+        return s;
+    }
+
+    @Override
+    public void handleNotification(Notification n, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(n.getType())) {
+            return;
+        }
+        // all pools are captured at the same time, right before the collection
+        var info = GarbageCollectionNotificationInfo.from((CompositeData) n.getUserData());
+        var used = 0L;
+        for (var e : info.getGcInfo().getMemoryUsageBeforeGc().entrySet()) {
+            if (heapPools.contains(e.getKey())) {
+                used += e.getValue().getUsed();
+            }
+        }
+        peakHeapBytes.accumulateAndGet(used, Math::max);
+    }
+
+    public static void log(Summary s) {
+        var sb = new StringBuilder();
+        for (var t : s.threads.subList(0, Math.min(NUM_THREADS, s.threads.size()))) {
+            sb.append(format(Locale.ROOT, "\n  %10.1f ms CPU  %10.1f MB allocated  %s", t.cpuNanos / NANOS_PER_MS, t.allocatedBytes / BYTES_PER_MB, t.name));
+        }
+        LOG.info("Run took {} ms ({} ms CPU), allocated {} MB, {} GCs ({} ms), peak heap {} MB, peak threads {}, top threads:{}", //
+                ms(s.wallNanos), ms(s.cpuNanos), mb(s.allocatedBytes), s.gcCount, s.gcMs, mb(s.peakHeapBytes), s.peakThreads, sb);
+    }
+
+    public static void write(Summary s, String runnable, File file) {
+        try {
+            Files.write(file.toPath(), (s.toJson(runnable) + "\n").getBytes(UTF_8));
+        } catch (IOException e) {
+            LOG.warn("Cannot write resource usage to {} ({})", file, e.getMessage());
+        }
+    }
+
+    private static String mb(long bytes) {
+        return format(Locale.ROOT, "%.1f", bytes / BYTES_PER_MB);
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long ms(long nanos) {
+        return nanos < 0 ? -1 : Math.round(nanos / NANOS_PER_MS);
+    }
+
+    private static long[] gc() {
+        var countAndMs = new long[2];
+        for (var gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            countAndMs[0] += Math.max(0, gc.getCollectionCount());
+            countAndMs[1] += Math.max(0, gc.getCollectionTime());
+        }
+        return countAndMs;
+    }
+
+    private static long processCpuNanos() {
+        var os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    public static class ThreadUsage {
+
+        public final String name;
+        public final long cpuNanos;
+        public final long allocatedBytes;
+
+        public ThreadUsage(String name, long cpuNanos, long allocatedBytes) {
+            this.name = name;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    public static class Summary {
+
+        public long wallNanos;
+        public long cpuNanos;
+        public long allocatedBytes;
+        public long gcCount;
+        public long gcMs;
+        public long peakHeapBytes;
+        public int peakThreads;
+        public final List<ThreadUsage> threads = new ArrayList<>();
+
+        public String toJson(String runnable) {
+            var sb = new StringBuilder("{\"runnable\":");
+            Json.quote(sb, runnable);
+            sb.append(format(",\"wallMs\":%d,\"cpuMs\":%d,\"allocatedBytes\":%d,\"gcCount\":%d,\"gcMs\":%d,\"peakHeapBytes\":%d,\"peakThreads\":%d,\"threads\":[", //
+                    ms(wallNanos), ms(cpuNanos), allocatedBytes, gcCount, gcMs, peakHeapBytes, peakThreads));
+            for (var i = 0; i < threads.size(); i++) {
+                var t = threads.get(i);
+                sb.append(i == 0 ? "{\"name\":" : ",{\"name\":");
+                Json.quote(sb, t.name);
+                sb.append(format(",\"cpuMs\":%d,\"allocatedBytes\":%d}", ms(t.cpuNanos), t.allocatedBytes));
+            }
+            return sb.append("]}").toString();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache of class path scan results. Every entry is keyed by class
+ * path root and package and is only reused, as long as the fingerprint of the
+ * root (size and modification time) does not change. Lookups are thread-safe,
+ * so several roots can be scanned in parallel.
+ */
+public class ScanCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScanCache.class);
+
+    private static final String HEADER = "# diapper scan cache v1";
+    private static final char SEP = '\t';
+
+    private final File file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+    private volatile boolean isDirty = false;
+    private int hits;
+    private int misses;
+    // the scan time of a root is only saved once and only if none of its packages are scanned again
+    private final Map<String, Long> savedMs = new HashMap<>();
+    private final Set<String> scannedRoots = new HashSet<>();
+
+    public ScanCache(File dir, Class<? extends Annotation> markerAnnotation) {
+        this.file = new File(dir, markerAnnotation.getName() + ".scancache");
+        read();
+    }
+
+    public Set<String> get(URL root, String basePkg) {
+        var key = key(root, basePkg);
+        var fp = fingerprint(root, basePkg);
+        if (fp != null) {
+            fingerprints.put(key, fp);
+        }
+        var e = entries.get(key);
+        var r = ClassIndex.normalize(root.toExternalForm());
+        synchronized (this) {
+            if (fp == null || e == null || !e.fingerprint.equals(fp)) {
+                misses++;
+                scannedRoots.add(r);
+                return null;
+            }
+            hits++;
+            savedMs.merge(r, e.scanMs, Math::max);
+        }
+        return e.types;
+    }
+
+    /**
+     * @param scanMs duration of the scan of the root, which might have covered
+     *               several packages at once
+     */
+    public void put(URL root, String basePkg, Set<String> types, long scanMs) {
+        var key = key(root, basePkg);
+        var fp = fingerprints.containsKey(key) ? fingerprints.get(key) : fingerprint(root, basePkg);
+        if (fp != null) {
+            entries.put(key, new Entry(fp, scanMs, types));
+            isDirty = true;
+        }
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    public synchronized long getSavedMs() {
+        var sum = 0L;
+        for (var kv : savedMs.entrySet()) {
+            if (!scannedRoots.contains(kv.getKey())) {
+                sum += kv.getValue();
+            }
+        }
+        return sum;
+    }
+
+    public synchronized void store() {
+        if (!isDirty) {
+            return;
+        }
+        var sb = new StringBuilder(HEADER).append('\n');
+        for (var kv : entries.entrySet()) {
+            var e = kv.getValue();
+            sb.append(kv.getKey()).append(SEP).append(e.fingerprint).append(SEP).append(e.scanMs).append(SEP);
+            sb.append(String.join(",", e.types)).append('\n');
+        }
+        try {
+            file.getParentFile().mkdirs();
+            // concurrent runs must never see a partially written cache
+            var tmp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+            Files.writeString(tmp, sb, StandardCharsets.UTF_8);
+            Files.move(tmp, file.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+            isDirty = false;
+        } catch (IOException e) {
+            LOG.warn("Cannot write scan cache {} ({})", file, e.getMessage());
+        }
+    }
+
+    private void read() {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            var lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !HEADER.equals(lines.get(0))) {
+                LOG.warn("Ignoring scan cache {} with unknown format", file);
+                return;
+            }
+            for (var line : lines.subList(1, lines.size())) {
+                var parts = line.split(String.valueOf(SEP), -1);
+                if (parts.length != 5) {
+                    continue;
+                }
+                var types = new TreeSet<String>();
+                if (!parts[4].isEmpty()) {
+                    types.addAll(Arrays.asList(parts[4].split(",")));
+                }
+                var e = new Entry(parts[2], Long.parseLong(parts[3]), types);
+                // drop entries of class path roots that do no longer exist
+                if (toPath(parts[0]) != null) {
+                    entries.put(parts[0] + SEP + parts[1], e);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            LOG.warn("Cannot read scan cache {} ({})", file, e.getMessage());
+            entries.clear();
+        }
+    }
+
+    private static String key(URL root, String basePkg) {
+        return ClassIndex.normalize(root.toExternalForm()) + SEP + basePkg;
+    }
+
+    /* pkg protected */ static String fingerprint(URL root, String basePkg) {
+        var path = toPath(ClassIndex.normalize(root.toExternalForm()));
+        if (path == null) {
+            return null;
+        }
+        var f = path.toFile();
+        if (f.isFile()) {
+            return f.length() + ":" + f.lastModified();
+        }
+        // directories are fingerprinted through all contained files of the package
+        var pkgDir = path.resolve(basePkg.replace('.', File.separatorChar));
+        if (!Files.isDirectory(pkgDir)) {
+            return "0:0:0";
+        }
+        try (Stream<Path> s = Files.walk(pkgDir)) {
+            var files = s.map(Path::toFile).filter(File::isFile).toArray(File[]::new);
+            var size = 0L;
+            var lastModified = 0L;
+            for (var p : files) {
+                size += p.length();
+                lastModified = Math.max(lastModified, p.lastModified());
+            }
+            return files.length + ":" + size + ":" + lastModified;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static Path toPath(String root) {
+        try {
+            var path = Paths.get(new URI(root));
+            return Files.exists(path) ? path : null;
+        } catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static class Entry {
+
+        private final String fingerprint;
+        private final long scanMs;
+        private final Set<String> types;
+
+        private Entry(String fingerprint, long scanMs, Set<String> types) {
+            this.fingerprint = fingerprint;
+            this.scanMs = scanMs;
+            this.types = types;
+        }
+    }
+}
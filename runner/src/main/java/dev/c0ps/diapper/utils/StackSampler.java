@@ -0,0 +1,120 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically samples the stacks of all running threads and writes them in
+ * the collapsed-stack format ("frame;frame;frame count"), which can be read by
+ * flame-graph tools. The samples are written when the sampler is stopped or,
+ * at the latest, when the VM exits.
+ */
+public class StackSampler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StackSampler.class);
+    private static final String THREAD_NAME = "diapper-sampler";
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final Map<String, Long> stacks = new HashMap<>();
+    private final File file;
+    private final Thread hook = new Thread(this::write, "diapper-sampler-hook");
+    private ScheduledExecutorService scheduler;
+    private long numSamples;
+
+    /* pkg protected */ StackSampler(File file) {
+        this.file = file;
+    }
+
+    public static StackSampler start(File file, int intervalMs) {
+        var sampler = new StackSampler(file);
+        sampler.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            var t = new Thread(r, THREAD_NAME);
+            t.setDaemon(true);
+            return t;
+        });
+        sampler.scheduler.scheduleAtFixedRate(sampler::sample, 0, intervalMs, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(sampler.hook);
+        return sampler;
+    }
+
+    /* pkg protected */ synchronized void sample() {
+        numSamples++;
+        for (var info : threads.dumpAllThreads(false, false)) {
+            if (info.getThreadState() == Thread.State.RUNNABLE && !THREAD_NAME.equals(info.getThreadName()) && info.getStackTrace().length > 0) {
+                stacks.merge(collapse(info), 1L, Long::sum);
+            }
+        }
+    }
+
+    /* pkg protected */ static String collapse(ThreadInfo info) {
+        var sb = new StringBuilder(info.getThreadName().replace(';', '_').replace(' ', '_'));
+        var frames = info.getStackTrace();
+        for (var i = frames.length - 1; i >= 0; i--) {
+            sb.append(';').append(frames[i].getClassName()).append('.').append(frames[i].getMethodName());
+        }
+        return sb.toString();
+    }
+
+    public synchronized Map<String, Long> stacks() {
+        return new TreeMap<>(stacks);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            // the VM is already shutting down, the hook writes the samples
+            return;
+        }
+        write();
+    }
+
+    private synchronized void write() {
+        var sb = new StringBuilder();
+        for (var e : stacks().entrySet()) {
+            sb.append(e.getKey()).append(' ').append(e.getValue()).append('\n');
+        }
+        try {
+            Files.write(file.toPath(), sb.toString().getBytes(UTF_8));
+            LOG.info("{} stack samples have been written to {}", numSamples, file);
+        } catch (IOException e) {
+            LOG.warn("Cannot write stack samples to {} ({})", file, e.getMessage());
+        }
+    }
+}
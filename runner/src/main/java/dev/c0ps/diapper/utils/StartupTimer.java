@@ -0,0 +1,182 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static java.lang.String.format;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the durations of the startup phases. Phases with the same name are
+ * summed up and phases that run concurrently overlap, so their sum can exceed
+ * the total startup time. Phases that are recorded within another phase or on
+ * another thread than the one that has created the timer are nested and are
+ * not ranked when the budget is exceeded. Every timed phase is also kept as a
+ * {@link Span} on the thread that has run it, e.g., to export a trace.
+ */
+public class StartupTimer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StartupTimer.class);
+    private static final double NANOS_PER_MS = 1_000_000.0;
+    private static final int NUM_SLOWEST = 3;
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Set<String> nested = new HashSet<>();
+    private final List<Span> spans = new ArrayList<>();
+    private final ThreadLocal<Integer> depth = ThreadLocal.withInitial(() -> 0);
+    private final long ownerId = Thread.currentThread().getId();
+    private final long start;
+
+    public StartupTimer() {
+        this(System.nanoTime());
+    }
+
+    /* pkg protected */ StartupTimer(long start) {
+        this.start = start;
+    }
+
+    public <T> T time(String phase, Supplier<T> s) {
+        var t = System.nanoTime();
+        depth.set(depth.get() + 1);
+        try {
+            return s.get();
+        } finally {
+            depth.set(depth.get() - 1);
+            stop(phase, t);
+        }
+    }
+
+    public void time(String phase, Runnable r) {
+        time(phase, () -> {
+            r.run();
+            return null;
+        });
+    }
+
+    /** Records a phase that has been started at the given {@link System#nanoTime()}. */
+    public void stop(String phase, long startNanos) {
+        var end = System.nanoTime();
+        add(phase, end - startNanos);
+        add(new Span(phase, "startup", startNanos, end, Map.of()));
+    }
+
+    public void add(String phase, long nanos) {
+        var isNested = depth.get() > 0 || Thread.currentThread().getId() != ownerId;
+        synchronized (this) {
+            phases.merge(phase, nanos, Long::sum);
+            if (isNested) {
+                nested.add(phase);
+            }
+        }
+    }
+
+    /**
+     * Records a span on the current thread that has been started at the given
+     * {@link System#nanoTime()}, but does not count as a phase.
+     */
+    public void span(String name, String category, long startNanos, Map<String, String> args) {
+        add(new Span(name, category, startNanos, System.nanoTime(), args));
+    }
+
+    private synchronized void add(Span span) {
+        spans.add(span);
+    }
+
+    public synchronized List<Span> spans() {
+        return new ArrayList<>(spans);
+    }
+
+    public long startNanos() {
+        return start;
+    }
+
+    public synchronized Map<String, Long> phases() {
+        return new LinkedHashMap<>(phases);
+    }
+
+    /* pkg protected */ synchronized boolean isNested(String phase) {
+        return nested.contains(phase);
+    }
+
+    public long totalMs() {
+        return Math.round((System.nanoTime() - start) / NANOS_PER_MS);
+    }
+
+    /**
+     * Logs the duration of all phases and warns about the slowest phases, if the
+     * startup has taken longer than the given budget (0 disables the budget).
+     */
+    public void report(long budgetMs) {
+        var phases = phases();
+        var totalMs = totalMs();
+        var table = new StringBuilder();
+        var topLevel = new LinkedHashMap<String, Long>();
+        for (var e : phases.entrySet()) {
+            table.append(format(Locale.ROOT, "\n  %9.1f ms  %s", e.getValue() / NANOS_PER_MS, e.getKey()));
+            if (!isNested(e.getKey())) {
+                topLevel.put(e.getKey(), e.getValue());
+            }
+        }
+        LOG.info("Startup took {} ms:{}", totalMs, table);
+
+        if (budgetMs > 0 && totalMs > budgetMs) {
+            LOG.warn("Startup took {} ms, which exceeds the budget of {} ms. Slowest phases: {}", totalMs, budgetMs, slowest(topLevel));
+        }
+    }
+
+    private static String slowest(Map<String, Long> phases) {
+        var sorted = new ArrayList<>(phases.entrySet());
+        sorted.sort(Entry.<String, Long>comparingByValue().reversed());
+        var slowest = new ArrayList<String>();
+        for (var e : sorted.subList(0, Math.min(NUM_SLOWEST, sorted.size()))) {
+            slowest.add(format(Locale.ROOT, "%s (%.1f ms)", e.getKey(), e.getValue() / NANOS_PER_MS));
+        }
+        return String.join(", ", slowest);
+    }
+
+    public static class Span {
+
+        public final String name;
+        public final String category;
+        public final long threadId;
+        public final String threadName;
+        public final long startNanos;
+        public final long endNanos;
+        public final Map<String, String> args;
+
+        public Span(String name, String category, long startNanos, long endNanos, Map<String, String> args) {
+            this.name = name;
+            this.category = category;
+            var t = Thread.currentThread();
+            this.threadId = t.getId();
+            this.threadName = t.getName();
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            this.args = args;
+        }
+    }
+}
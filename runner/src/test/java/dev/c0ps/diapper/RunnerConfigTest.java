@@ -15,15 +15,23 @@
  */
 package dev.c0ps.diapper;
 
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.HashSet;
+
 import org.junit.jupiter.api.Test;
 
 import com.google.inject.Binder;
+import com.google.inject.Guice;
+import com.google.inject.Key;
 import com.google.inject.binder.AnnotatedBindingBuilder;
 
+import dev.c0ps.diapper.utils.ProvisionProfiler;
+
 public class RunnerConfigTest {
 
     @SuppressWarnings("unchecked")
@@ -40,4 +48,24 @@ public class RunnerConfigTest {
         verify(binder).bind(RunnerArgs.class);
         verify(builder).toInstance(args);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void noProfilerByDefault() {
+        var injector = Guice.createInjector(new RunnerConfig(new RunnerArgs()));
+        assertNull(injector.getExistingBinding(Key.get(ProvisionProfiler.class)));
+    }
+
+    @Test
+    public void profilerIsRegistered() {
+        var args = new RunnerArgs();
+        args.profileProvisions = true;
+        var injector = Guice.createInjector(new RunnerConfig(args));
+        injector.getInstance(Object.class);
+        var profiler = injector.getInstance(ProvisionProfiler.class);
+        var keys = new HashSet<Key<?>>();
+        for (var s : profiler.stats()) {
+            keys.add(s.key);
+        }
+        assertTrue(keys.contains(Key.get(Object.class)), keys.toString());
+    }
+}
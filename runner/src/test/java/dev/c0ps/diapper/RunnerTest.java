@@ -23,24 +23,45 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.github.stefanbirkner.systemlambda.SystemLambda;
 import com.google.inject.Provides;
 
+import dev.c0ps.diapper.jmx.RunnerMonitor;
+import dev.c0ps.diapper.utils.ClassLoadReport;
+import dev.c0ps.diapper.utils.ModulePruner;
+import dev.c0ps.diapper.utils.ReflectionUtils;
+import dev.c0ps.diapper.utils.ResourceUsage;
+import dev.c0ps.diapper.utils.StartupTimer;
 import dev.c0ps.test.TestLoggerUtils;
 import jakarta.inject.Inject;
+import jdk.jfr.consumer.RecordingFile;
 import other.OtherConfig;
 import other2.YetAnotherConfig;
+import recorded.FirstRecordedConfig;
 
 public class RunnerTest {
 
     private static final String BASE_PKG = RunnerTest.class.getPackageName();
 
+    @TempDir
+    private File tempDir;
+
     private Runner sut;
 
     @BeforeEach
@@ -67,6 +88,157 @@ public class RunnerTest {
         // test is successful when runnable can be provisioned
     }
 
+    @Test
+    public void prunedModulesCanProvisionRunnable() {
+        sut = new Runner( //
+                OtherConfig.class.getPackageName(), //
+                YetAnotherConfig.class.getPackageName());
+        sut.run(new String[] { "--run", MultiConfigPlugin.class.getName(), "--pruneModules" });
+        // test is successful when runnable can be provisioned
+    }
+
+    @Test
+    public void recordedModulesCanProvisionRunnable() {
+        sut = new Runner( //
+                OtherConfig.class.getPackageName(), //
+                YetAnotherConfig.class.getPackageName());
+        sut.run(new String[] { "--run", MultiConfigPlugin.class.getName(), "--recordModules" });
+        // test is successful when runnable can be provisioned
+    }
+
+    @Test
+    public void modulesAreRecordedInParallelOnSequentialStartup() {
+        sut = new Runner(FirstRecordedConfig.class.getPackageName());
+        sut.run(new String[] { "--run", TestPlugin.class.getName(), "--recordModules" });
+        assertTrue(TestPlugin.wasCalled);
+        assertEquals(2, FirstRecordedConfig.THREADS.size(), FirstRecordedConfig.THREADS.toString());
+    }
+
+    @Test
+    public void modulesCanBeExplained() {
+        sut.run(new String[] { "--run", TestPlugin.class.getName(), "--explainModules" });
+        assertTrue(TestPlugin.wasCalled);
+        assertEquals(4, getFormattedLogs(Runner.class).size());
+        var logs = getFormattedLogs(ModulePruner.class);
+        assertTrue(logs.get(0).startsWith("INFO Keeping 0 of "), logs.get(0));
+        assertTrue(logs.contains("INFO   dropped " + RunnerConfig.class.getName() + " (no reachable binding)"));
+    }
+
+    @Test
+    public void startupCanBeSequential() {
+        sut.run(new String[] { "--run", TestPlugin.class.getName(), "--startupThreads", "1" });
+        assertTrue(TestPlugin.wasCalled);
+    }
+
+    @Test
+    public void startupCanBeConcurrent() {
+        sut.run(new String[] { "--run", TestPlugin.class.getName(), "--startupThreads", "4" });
+        assertTrue(TestPlugin.wasCalled);
+    }
+
+    @Test
+    public void unknownRunnableExitsOnConcurrentStartup() throws Exception {
+        var status = catchSystemExit(() -> {
+            sut.run(new String[] { "--run", "some.non.existing.Runnable", "--startupThreads", "4" });
+        });
+        assertEquals(1, status);
+        assertTrue(getFormattedLogs(ReflectionUtils.class).contains("ERROR Class cannot be found: some.non.existing.Runnable"));
+    }
+
+    @Test
+    public void startupPhasesAreReported() {
+        sut.run(new String[] { "--run", TestPlugin.class.getName() });
+        var logs = getFormattedLogs(StartupTimer.class);
+        assertEquals(1, logs.size());
+        var log = logs.get(0);
+        assertTrue(log.contains(" ms  parse args\n"), log);
+        assertTrue(log.contains(" ms  construct " + RunnerConfig.class.getName() + "\n"), log);
+        assertTrue(log.contains(" ms  create injector\n"), log);
+        assertTrue(log.endsWith(" ms  create runnable"), log);
+    }
+
+    @Test
+    public void startupBudgetCanBeExceeded() {
+        sut.run(new String[] { "--run", TestPlugin.class.getName(), "--startupBudgetMs", "1" });
+        var logs = getFormattedLogs(StartupTimer.class);
+        assertEquals(2, logs.size());
+        assertTrue(logs.get(1).startsWith("WARN Startup took "), logs.get(1));
+    }
+
+    @Test
+    public void flightRecordingContainsStartupEvents() throws IOException {
+        var jfr = new File(tempDir, "app.jfr");
+        sut.run(new String[] { "--run", TestPlugin.class.getName(), "--jfr", jfr.getAbsolutePath() });
+        var names = new HashSet<String>();
+        for (var e : RecordingFile.readAllEvents(jfr.toPath())) {
+            names.add(e.getEventType().getName());
+        }
+        assertTrue(names.contains("dev.c0ps.diapper.ModuleLoad"), names.toString());
+        assertTrue(names.contains("dev.c0ps.diapper.InjectorCreation"), names.toString());
+        assertTrue(names.contains("dev.c0ps.diapper.Run"), names.toString());
+    }
+
+    @Test
+    public void countersCanBeInjected() {
+        sut.run(new String[] { "--run", CountingPlugin.class.getName(), "--pruneModules" });
+        assertEquals(1, CountingPlugin.counters.get("runs"));
+    }
+
+    @Test
+    public void monitorIsRegistered() throws JMException {
+        sut.run(new String[] { "--run", CountingPlugin.class.getName(), "--jmx" });
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var name = new ObjectName(RunnerMonitor.OBJECT_NAME);
+        assertEquals(CountingPlugin.class.getName(), server.getAttribute(name, "Runnable"));
+        assertEquals("INFO", server.getAttribute(name, "LogLevel"));
+        var counters = (TabularData) server.getAttribute(name, "Counters");
+        assertEquals(1L, counters.get(new Object[] { "runs" }).get("value"));
+    }
+
+    @Test
+    public void metricsAreWritten() throws IOException {
+        var file = new File(tempDir, "metrics.jsonl");
+        sut.run(new String[] { "--run", CountingPlugin.class.getName(), "--metricsFile", file.getAbsolutePath() });
+        var lines = Files.readAllLines(file.toPath());
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains(",\"diapper_counter{name=\\\"runs\\\"}\":1,"), lines.get(1));
+    }
+
+    @Test
+    public void traceIsWritten() throws IOException {
+        var file = new File(tempDir, "trace.json");
+        sut.run(new String[] { "--run", CountingPlugin.class.getName(), "--trace", file.getAbsolutePath() });
+        var trace = Files.readString(file.toPath());
+        assertTrue(trace.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[{\"ph\":\"X\",\"name\":\"parse args\""), trace);
+        assertTrue(trace.contains("\"name\":\"construct " + RunnerConfig.class.getName() + "\""), trace);
+        assertTrue(trace.contains("\"name\":\"" + CountingPlugin.class.getName() + "\",\"cat\":\"provision\""), trace);
+        assertTrue(trace.contains("\"name\":\"run " + CountingPlugin.class.getName() + "\",\"cat\":\"run\""), trace);
+    }
+
+    @Test
+    public void classLoadsAreReported() {
+        sut.run(new String[] { "--run", TestPlugin.class.getName(), "--classLoadReport" });
+        var logs = getFormattedLogs(ClassLoadReport.class);
+        assertEquals(2, logs.size());
+        assertTrue(logs.get(1).startsWith("INFO Classes loaded per source:"), logs.get(1));
+    }
+
+    @Test
+    public void stacksAreSampled() {
+        var file = new File(tempDir, "stacks.txt");
+        sut.run(new String[] { "--run", TestPlugin.class.getName(), "--sampleStacks", file.getAbsolutePath() });
+        assertTrue(TestPlugin.wasCalled);
+        assertTrue(file.exists());
+    }
+
+    @Test
+    public void resourceUsageIsReported() throws IOException {
+        var file = new File(tempDir, "usage.json");
+        sut.run(new String[] { "--run", TestPlugin.class.getName(), "--resourceReport", file.getAbsolutePath() });
+        assertEquals(1, getFormattedLogs(ResourceUsage.class).size());
+        assertTrue(Files.readString(file.toPath()).startsWith("{\"runnable\":\"" + TestPlugin.class.getName() + "\","));
+    }
+
     @Test
     public void logSettingDefaultIsSet() {
         var logSettings = mock(ILogSettings.class);
@@ -95,6 +267,14 @@ public class RunnerTest {
         assertTrue(logs.contains("INFO VM Arguments: --run dev.c0ps.diapper.RunnerTest$TestPlugin"));
     }
 
+    @Test
+    public void scanCacheIsReported() {
+        sut.run(new String[] { "--run", TestPlugin.class.getName(), "--scanCacheDir", tempDir.getAbsolutePath() });
+        var logs = getFormattedLogs(Runner.class);
+        assertEquals(5, logs.size());
+        assertTrue(logs.get(4).startsWith("INFO Scan cache: "));
+    }
+
     @Test
     public void missingPluginPrintsUsage() throws Exception {
         var out = SystemLambda.tapSystemOut(() -> {
@@ -108,6 +288,54 @@ public class RunnerTest {
         assertTrue(out.contains("--run"));
     }
 
+    @Test
+    public void invalidMemoryThresholdPrintsUsage() throws Exception {
+        var out = SystemLambda.tapSystemOut(() -> {
+            var status = catchSystemExit(() -> {
+                sut.run(new String[] { "--run", TestPlugin.class.getName(), "--memoryThreshold", "1.5" });
+            });
+            assertEquals(1, status);
+        });
+        assertTrue(out.contains("--memoryThreshold must be within (0, 1], or 0 to disable it"));
+        assertFalse(TestPlugin.wasCalled);
+    }
+
+    @Test
+    public void invalidSampleIntervalPrintsUsage() throws Exception {
+        var out = SystemLambda.tapSystemOut(() -> {
+            var status = catchSystemExit(() -> {
+                sut.run(new String[] { "--run", TestPlugin.class.getName(), "--sampleIntervalMs", "0" });
+            });
+            assertEquals(1, status);
+        });
+        assertTrue(out.contains("--sampleIntervalMs must be positive"));
+        assertFalse(TestPlugin.wasCalled);
+    }
+
+    @Test
+    public void invalidMetricsIntervalPrintsUsage() throws Exception {
+        var out = SystemLambda.tapSystemOut(() -> {
+            var status = catchSystemExit(() -> {
+                sut.run(new String[] { "--run", TestPlugin.class.getName(), "--metricsIntervalMs", "0" });
+            });
+            assertEquals(1, status);
+        });
+        assertTrue(out.contains("--metricsIntervalMs must be positive"));
+        assertFalse(TestPlugin.wasCalled);
+    }
+
+    @Test
+    public void invalidProfileTopPrintsUsage() throws Exception {
+        var out = SystemLambda.tapSystemOut(() -> {
+            var status = catchSystemExit(() -> {
+                sut.run(new String[] { "--run", TestPlugin.class.getName(), "--profileTop", "-1" });
+            });
+            assertEquals(1, status);
+        });
+        assertTrue(out.contains("--profileTop must not be negative"));
+        assertFalse(TestPlugin.wasCalled);
+    }
+
     @Test
     public void handleThrowables() throws Exception {
         catchSystemExit(() -> {
@@ -155,6 +383,21 @@ public class RunnerTest {
         }
     }
 
+    public static class CountingPlugin implements Runnable {
+
+        public static ICounters counters;
+
+        @Inject
+        public CountingPlugin(ICounters counters) {
+            CountingPlugin.counters = counters;
+        }
+
+        @Override
+        public void run() {
+            counters.increment("runs");
+        }
+    }
+
     public static class MultiConfigPlugin implements Runnable {
 
         @Inject
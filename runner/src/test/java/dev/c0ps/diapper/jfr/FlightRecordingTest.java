@@ -0,0 +1,55 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.jfr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class FlightRecordingTest {
+
+    @TempDir
+    private File tempDir;
+
+    @Test
+    public void eventsAreWrittenOnStop() throws IOException {
+        var file = new File(tempDir, "test.jfr");
+        var sut = FlightRecording.start(file);
+
+        var event = new ScanEvent();
+        event.begin();
+        event.root = "file:/x.jar";
+        event.packages = "a.b";
+        event.found = 3;
+        event.commit();
+        sut.stop();
+
+        var events = RecordingFile.readAllEvents(file.toPath()).stream() //
+                .filter(e -> e.getEventType().getName().equals("dev.c0ps.diapper.Scan")) //
+                .toArray(RecordedEvent[]::new);
+        assertEquals(1, events.length);
+        assertEquals("file:/x.jar", events[0].getString("root"));
+        assertEquals("a.b", events[0].getString("packages"));
+        assertEquals(3, events[0].getInt("found"));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.jmx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.c0ps.diapper.ILogSettings;
+import dev.c0ps.diapper.LogLevel;
+import dev.c0ps.diapper.RunnerArgs;
+import dev.c0ps.diapper.utils.Counters;
+import dev.c0ps.diapper.utils.StartupTimer;
+
+public class RunnerMonitorTest {
+
+    private RunnerArgs args;
+    private StartupTimer timer;
+    private Counters counters;
+    private ILogSettings logSettings;
+    private RunnerMonitor sut;
+
+    @BeforeEach
+    public void setup() {
+        args = new RunnerArgs();
+        args.run = "a.B";
+        timer = new StartupTimer();
+        timer.add("x", 2_000_000);
+        counters = new Counters();
+        logSettings = mock(ILogSettings.class);
+        sut = new RunnerMonitor(args, List.of("c.D"), timer, counters, logSettings);
+    }
+
+    @Test
+    public void stateIsExposed() {
+        assertEquals("a.B", sut.getRunnable());
+        assertEquals(List.of("c.D"), sut.getModules());
+        assertEquals(Map.of("x", 2L), sut.getStartupPhases());
+        assertTrue(sut.getUptimeMs() >= sut.getStartupMs());
+    }
+
+    @Test
+    public void runnerArgsAreExposed() {
+        var values = sut.getRunnerArgs();
+        assertEquals("a.B", values.get("run"));
+        assertEquals("INFO", values.get("logLevel"));
+        assertEquals("null", values.get("scanCacheDir"));
+    }
+
+    @Test
+    public void countersAreLive() {
+        counters.increment("a");
+        assertEquals(Map.of("a", 1L), sut.getCounters());
+        counters.increment("a");
+        assertEquals(Map.of("a", 2L), sut.getCounters());
+    }
+
+    @Test
+    public void logLevelCanBeChanged() {
+        assertEquals("INFO", sut.getLogLevel());
+        sut.setLogLevel("debug");
+        assertEquals("DEBUG", sut.getLogLevel());
+        verify(logSettings).setLogLevel(LogLevel.DEBUG);
+    }
+
+    @Test
+    public void unknownLogLevelIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> sut.setLogLevel("x"));
+    }
+
+    @Test
+    public void registrationReplacesPreviousMonitor() throws JMException {
+        sut.register();
+        var other = new RunnerMonitor(args, List.of(), timer, counters, logSettings);
+        other.register();
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var name = new ObjectName(RunnerMonitor.OBJECT_NAME);
+        assertTrue(server.isRegistered(name));
+        assertEquals(0, ((String[]) server.getAttribute(name, "Modules")).length);
+    }
+}
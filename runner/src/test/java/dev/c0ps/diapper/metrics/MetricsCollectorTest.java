@@ -0,0 +1,66 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import dev.c0ps.diapper.utils.Counters;
+import dev.c0ps.diapper.utils.StartupTimer;
+
+public class MetricsCollectorTest {
+
+    @Test
+    public void runnerMetricsAreCollected() {
+        var timer = new StartupTimer();
+        timer.add("scan", 500_000_000);
+        var counters = new Counters();
+        counters.set("c", 3);
+
+        var samples = new MetricsCollector("a.B", timer, counters).collect();
+        assertEquals(1, find(samples, "diapper_info", Map.of("runnable", "a.B")).value);
+        assertEquals(0.5, find(samples, "diapper_startup_phase_seconds", Map.of("phase", "scan")).value);
+        assertEquals(3, find(samples, "diapper_counter", Map.of("name", "c")).value);
+    }
+
+    @Test
+    public void jvmMetricsAreCollected() {
+        var samples = new MetricsCollector("a.B", new StartupTimer(), new Counters()).collect();
+        var names = new HashSet<String>();
+        for (var s : samples) {
+            names.add(s.name);
+        }
+        assertTrue(names.contains("jvm_memory_heap_used_bytes"));
+        assertTrue(names.contains("jvm_gc_collections_total"));
+        assertTrue(names.contains("jvm_threads_live"));
+        assertTrue(names.contains("process_uptime_seconds"));
+    }
+
+    private static Sample find(List<Sample> samples, String name, Map<String, String> labels) {
+        for (var s : samples) {
+            if (s.name.equals(name) && s.labels.equals(labels)) {
+                return s;
+            }
+        }
+        throw new AssertionError(name + labels);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.metrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.c0ps.diapper.utils.Counters;
+import dev.c0ps.diapper.utils.StartupTimer;
+
+public class MetricsExporterTest {
+
+    @TempDir
+    private File tempDir;
+
+    private Counters counters;
+    private MetricsCollector collector;
+
+    @BeforeEach
+    public void setup() {
+        counters = new Counters();
+        collector = new MetricsCollector("a.B", new StartupTimer(), counters);
+    }
+
+    @Test
+    public void endpointServesPrometheusFormat() throws IOException {
+        var sut = MetricsExporter.start(collector, 0, null, 1000);
+        try {
+            counters.set("c", 7);
+            var con = (HttpURLConnection) new URL("http://localhost:" + sut.port() + "/metrics").openConnection();
+            assertEquals(200, con.getResponseCode());
+            assertTrue(con.getContentType().startsWith("text/plain"));
+            var body = new String(con.getInputStream().readAllBytes(), UTF_8);
+            assertTrue(body.contains("\ndiapper_counter{name=\"c\"} 7\n"), body);
+        } finally {
+            sut.close();
+        }
+    }
+
+    @Test
+    public void snapshotsAreAppended() throws IOException {
+        var file = new File(tempDir, "metrics.jsonl");
+        var sut = MetricsExporter.start(collector, null, file, 60_000);
+        assertEquals(-1, sut.port());
+        counters.set("c", 7);
+        sut.close();
+
+        var lines = Files.readAllLines(file.toPath());
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"timestamp\":"), lines.get(0));
+        assertTrue(lines.get(1).contains(",\"diapper_counter{name=\\\"c\\\"}\":7,"), lines.get(1));
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class MetricsFormatTest {
+
+    private static final List<Sample> SAMPLES = List.of( //
+            Sample.gauge("a", 1), //
+            Sample.counter("b_total", "x", "1", 2.5), //
+            Sample.counter("b_total", "x", "q\"\\\n", 3));
+
+    @Test
+    public void prometheus() {
+        var expected = "# TYPE a gauge\n" //
+                + "a 1\n" //
+                + "# TYPE b_total counter\n" //
+                + "b_total{x=\"1\"} 2.5\n" //
+                + "b_total{x=\"q\\\"\\\\\\n\"} 3\n";
+        assertEquals(expected, MetricsFormat.prometheus(SAMPLES));
+    }
+
+    @Test
+    public void jsonLine() {
+        var expected = "{\"timestamp\":123,\"a\":1,\"b_total{x=\\\"1\\\"}\":2.5,\"b_total{x=\\\"q\\\\\\\"\\\\\\\\\\\\n\\\"}\":3}";
+        assertEquals(expected, MetricsFormat.jsonLine(123, SAMPLES));
+    }
+
+    @Test
+    public void largeValuesAreNotTruncated() {
+        assertEquals("{\"timestamp\":1,\"a\":1.0E20}", MetricsFormat.jsonLine(1, List.of(Sample.gauge("a", 1e20))));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.trace;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Provides;
+
+import dev.c0ps.diapper.utils.StartupTimer;
+
+public class ProvisionTracerTest {
+
+    @Test
+    public void provisionsAreNested() {
+        var timer = new StartupTimer();
+        var injector = Guice.createInjector(new TestModule(), new ProvisionTracer(timer));
+        injector.getInstance(Integer.class);
+
+        var names = new ArrayList<String>();
+        for (var s : timer.spans()) {
+            names.add(s.name);
+        }
+        var provideString = TestModule.class.getName() + ".provideString()";
+        var provideInt = TestModule.class.getName() + ".provideInt()";
+        assertEquals(List.of(provideString, provideInt), names);
+
+        var outer = timer.spans().get(1);
+        var inner = timer.spans().get(0);
+        assertTrue(outer.startNanos <= inner.startNanos && inner.endNanos <= outer.endNanos);
+        assertEquals("provision", outer.category);
+        assertEquals("Key[type=java.lang.Integer, annotation=[none]]", outer.args.get("key"));
+    }
+
+    @Test
+    public void otherBindingsAreNamedByType() {
+        var timer = new StartupTimer();
+        var injector = Guice.createInjector(new ProvisionTracer(timer));
+        injector.getInstance(ArrayList.class);
+        assertEquals("java.util.ArrayList", timer.spans().get(0).name);
+    }
+
+    @Test
+    public void nothingIsRecordedAfterStop() {
+        var timer = new StartupTimer();
+        var tracer = new ProvisionTracer(timer);
+        var injector = Guice.createInjector(new TestModule(), tracer);
+        tracer.stop();
+        assertEquals(2, (int) injector.getInstance(Integer.class));
+        assertEquals(List.of(), timer.spans());
+    }
+
+    private static class TestModule extends AbstractModule {
+
+        @Provides
+        public String provideString() {
+            return "xy";
+        }
+
+        @Provides
+        public Integer provideInt(String s) {
+            return s.length();
+        }
+    }
+}
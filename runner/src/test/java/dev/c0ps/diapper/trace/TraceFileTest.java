@@ -0,0 +1,50 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.trace;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import dev.c0ps.diapper.utils.StartupTimer.Span;
+
+public class TraceFileTest {
+
+    private static final long PID = ProcessHandle.current().pid();
+    private static final long TID = Thread.currentThread().getId();
+    private static final String THREAD = Thread.currentThread().getName();
+
+    @Test
+    public void emptyTrace() {
+        assertEquals("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[]}", TraceFile.toJson(List.of(), 0));
+    }
+
+    @Test
+    public void spansAreCompleteEvents() {
+        var spans = List.of( //
+                new Span("a", "startup", 1_500, 4_000, Map.of()), //
+                new Span("b\"", "provision", 2_000, 3_000, Map.of("key", "k")));
+        var expected = "{\"displayTimeUnit\":\"ms\",\"traceEvents\":[" //
+                + "{\"ph\":\"X\",\"name\":\"a\",\"cat\":\"startup\",\"ts\":0.500,\"dur\":2.500,\"pid\":" + PID + ",\"tid\":" + TID + "}," //
+                + "{\"ph\":\"X\",\"name\":\"b\\\"\",\"cat\":\"provision\",\"ts\":1.000,\"dur\":1.000,\"pid\":" + PID + ",\"tid\":" + TID + ",\"args\":{\"key\":\"k\"}}," //
+                + "{\"ph\":\"M\",\"name\":\"thread_name\",\"pid\":" + PID + ",\"tid\":" + TID + ",\"args\":{\"name\":\"" + THREAD + "\"}}" //
+                + "]}";
+        assertEquals(expected, TraceFile.toJson(spans, 1_000));
+    }
+}
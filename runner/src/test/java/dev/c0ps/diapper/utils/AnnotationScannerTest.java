@@ -0,0 +1,230 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.c0ps.diapper.InjectorConfig;
+
+public class AnnotationScannerTest {
+
+    private static final String PKG = AnnotationScannerTest.class.getPackageName();
+    private static final Set<String> EXPECTED = names(A.class, B.class, C.class, E.class, Meta.class);
+
+    @TempDir
+    private File tmp;
+
+    private AnnotationScanner sut;
+
+    @BeforeEach
+    public void setup() {
+        sut = new AnnotationScanner(Marker.class);
+    }
+
+    @Test
+    public void directory() throws IOException {
+        var dir = new File(tmp, "classes");
+        for (var e : fixtures()) {
+            var f = new File(dir, e);
+            f.getParentFile().mkdirs();
+            Files.write(f.toPath(), read(e));
+        }
+        assertEquals(EXPECTED, sut.scan(url(dir), List.of(PKG)));
+    }
+
+    @Test
+    public void testClassesCanBeScanned() throws IOException {
+        var root = AnnotationScanner.findRoots(PKG, getClass().getClassLoader()).stream() //
+                .filter(u -> u.toExternalForm().contains("test-classes")) //
+                .findFirst().get();
+        assertEquals(EXPECTED, sut.scan(root, List.of(PKG)));
+    }
+
+    @Test
+    public void jar() throws IOException {
+        var jar = new File(tmp, "lib.jar");
+        writeJar(jar, "");
+        assertEquals(EXPECTED, sut.scan(url(jar), List.of(PKG)));
+        assertEquals(EXPECTED, sut.scan(new URL("jar:" + url(jar) + "!/"), List.of(PKG)));
+    }
+
+    @Test
+    public void nestedJar() throws IOException {
+        var inner = new File(tmp, "inner.jar");
+        writeJar(inner, "");
+        var outer = new File(tmp, "outer.jar");
+        try (var zos = new ZipOutputStream(new FileOutputStream(outer))) {
+            zos.putNextEntry(new ZipEntry("BOOT-INF/lib/inner.jar"));
+            zos.write(Files.readAllBytes(inner.toPath()));
+        }
+        var url = new URL("jar:" + url(outer) + "!/BOOT-INF/lib/inner.jar!/");
+        assertEquals(EXPECTED, sut.scan(url, List.of(PKG)));
+    }
+
+    @Test
+    public void nestedDirectory() throws IOException {
+        var jar = new File(tmp, "app.jar");
+        writeJar(jar, "BOOT-INF/classes/");
+        var url = new URL("jar:" + url(jar) + "!/BOOT-INF/classes!/");
+        assertEquals(EXPECTED, sut.scan(url, List.of(PKG)));
+    }
+
+    @Test
+    public void packagesAreFiltered() throws IOException {
+        var jar = new File(tmp, "lib.jar");
+        writeJar(jar, "");
+        assertEquals(Set.of(), sut.scan(url(jar), List.of("other")));
+        assertEquals(Set.of(), sut.scan(url(jar), List.of(PKG + "x")));
+        assertEquals(EXPECTED, sut.scan(url(jar), List.of("dev.c0ps", PKG)));
+        assertEquals(EXPECTED, sut.scan(url(jar), List.of("")));
+    }
+
+    @Test
+    public void nonExistingRoot() throws IOException {
+        assertEquals(Set.of(), sut.scan(url(new File(tmp, "non-existing.jar")), List.of(PKG)));
+    }
+
+    @Test
+    public void rootsAreFound() throws IOException {
+        var roots = AnnotationScanner.findRoots("other", getClass().getClassLoader());
+        assertEquals(1, roots.size());
+        assertTrue(roots.iterator().next().toExternalForm().endsWith("/test-classes/"));
+    }
+
+    @Test
+    public void runtimeAnnotationsAreFound() throws IOException {
+        var jar = new File(tmp, "lib.jar");
+        writeJar(jar, "");
+        sut = new AnnotationScanner(InjectorConfig.class);
+        assertEquals(Set.of(), sut.scan(url(jar), List.of(PKG)));
+        sut = new AnnotationScanner(Meta.class);
+        assertEquals(names(C.class), sut.scan(url(jar), List.of(PKG)));
+    }
+
+    @Test
+    public void classInfo() throws IOException {
+        var info = AnnotationScanner.ClassInfo.read(read(fixture(E.class)));
+        assertEquals(E.class.getName(), info.name);
+        assertEquals(Object.class.getName(), info.superName);
+        assertEquals(List.of(Runnable.class.getName()), info.interfaces);
+        assertEquals(Set.of(WithValues.class.getName(), Marker.class.getName()), new TreeSet<>(info.annotations));
+    }
+
+    @Test
+    public void invalidClassFile() {
+        assertThrows(IOException.class, () -> {
+            AnnotationScanner.ClassInfo.read(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+        });
+    }
+
+    private void writeJar(File jar, String dir) throws IOException {
+        try (var zos = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (var e : fixtures()) {
+                zos.putNextEntry(new ZipEntry(dir + e));
+                zos.write(read(e));
+            }
+            zos.putNextEntry(new ZipEntry("some/Unrelated.class"));
+            zos.write(read(fixture(A.class)));
+        }
+    }
+
+    private static List<String> fixtures() {
+        return List.of(fixture(A.class), fixture(B.class), fixture(C.class), fixture(D.class), fixture(E.class), //
+                fixture(Marker.class), fixture(Meta.class), fixture(WithValues.class));
+    }
+
+    private static String fixture(Class<?> c) {
+        return c.getName().replace('.', '/') + ".class";
+    }
+
+    private static byte[] read(String resource) throws IOException {
+        try (var in = AnnotationScannerTest.class.getClassLoader().getResourceAsStream(resource)) {
+            var out = new ByteArrayOutputStream();
+            in.transferTo((OutputStream) out);
+            return out.toByteArray();
+        }
+    }
+
+    private static URL url(File f) throws IOException {
+        return f.toURI().toURL();
+    }
+
+    private static Set<String> names(Class<?>... cs) {
+        var names = new TreeSet<String>();
+        for (var c : cs) {
+            names.add(c.getName());
+        }
+        return names;
+    }
+
+    @interface Marker {}
+
+    @Marker
+    @Retention(RUNTIME)
+    @interface Meta {}
+
+    @Retention(RUNTIME)
+    @interface WithValues {
+        String s();
+
+        int[] a();
+
+        ElementType e();
+
+        Class<?> c();
+
+        Retention r();
+    }
+
+    @Marker
+    public static class A {}
+
+    public static class B extends A {}
+
+    @Meta
+    public static class C {}
+
+    public static class D {}
+
+    @WithValues(s = "x", a = { 1, 2 }, e = ElementType.TYPE, c = String.class, r = @Retention(RUNTIME))
+    @Marker
+    public static class E implements Runnable {
+        @Override
+        public void run() {}
+    }
+}
@@ -16,12 +16,27 @@
 package dev.c0ps.diapper.utils;
 
 import static java.lang.String.format;
+import static org.apache.commons.lang3.builder.ToStringBuilder.reflectionToString;
+import static org.apache.commons.lang3.builder.ToStringStyle.SHORT_PREFIX_STYLE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import com.beust.jcommander.IStringConverter;
 import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+
+import dev.c0ps.diapper.ArgsBinders;
 
 public class ArgsParserTest {
 
@@ -87,6 +102,187 @@ public class ArgsParserTest {
         assertEquals(msg, e.getMessage());
     }
 
+    @Test
+    public void createdArgsAreParsedLater() {
+        var sut = with("-a", "2", "--x", "b");
+        var a = sut.create(TestArgsA.class);
+        var x = sut.create(TestArgsUnsupported.class);
+        assertEquals(123, a.a);
+        assertNull(x.x);
+        assertSame(a, sut.parse(TestArgsA.class, a));
+        assertSame(x, sut.parse(TestArgsUnsupported.class, x));
+        assertEquals(2, a.a);
+        assertEquals("B", x.x);
+    }
+
+    @Test
+    public void createdArgsReserveTheirParameters() {
+        var sut = with();
+        sut.create(TestArgsA.class);
+        assertThrows(IllegalStateException.class, () -> {
+            sut.create(TestArgsA2.class);
+        });
+    }
+
+    @Test
+    public void bindersAreGenerated() {
+        assertTrue(hasBinder(TestArgsAll.class));
+        assertTrue(hasBinder(TestArgsA.class));
+        assertFalse(hasBinder(TestArgsUnsupported.class));
+    }
+
+    @Test
+    public void unsupportedArgsFallBackToJCommander() {
+        var actual = with("--x", "a").parse(TestArgsUnsupported.class);
+        assertEquals("A", actual.x);
+    }
+
+    @Test
+    public void bindersBehaveLikeJCommander() {
+        String[][] inputs = { //
+                {}, //
+                { "--s", "a" }, //
+                { "-s", "a", "--s", "b" }, //
+                { "--s" }, //
+                { "--s", "--i" }, //
+                { "--s", "--", "v" }, //
+                { " --s ", "v" }, //
+                { "\"--s\"", "\"v\"" }, //
+                { "--s", "v", "--", "x" }, //
+                { "--s", "v", "--" }, //
+                { "pos", "--s", "v", "-3", "w" }, //
+                { "--unknown", "1", "--i", "2" }, //
+                { "--i", "-3", "--l", "4", "--d", "1.5", "--f", "2.5", "--bi", "5" }, //
+                { "--i", "x" }, //
+                { "--i", "1", "--i", "1" }, //
+                { "--l", "x" }, //
+                { "--d", "x" }, //
+                { "--f", "x" }, //
+                { "--b" }, //
+                { "--b", "--b" }, //
+                { "--bt" }, //
+                { "--bb" }, //
+                { "--b", "false" }, //
+                { "--b1", "TRUE" }, //
+                { "--b1", "x" }, //
+                { "--b1" }, //
+                { "--e", "bb" }, //
+                { "--e", "cc" }, //
+                { "--file", "a/b", "--path", "c/d" }, //
+                { "--strings", "a,,b," }, //
+                { "--strings", "a,b", "--strings", "c" }, //
+                { "--ints", "1,2" }, //
+                { "--ints", "1,x" }, //
+                { "--enums", "aa,BB" }, //
+                { "--other", "--s" }, //
+                { "--other", "--s", "v" }, //
+                { "--s", "--", "--s" }, //
+                { "--s", "--s", "--s" }, //
+                { "--s", "v", "--b", "--", "--b" }, //
+                { "--unknown", "--", "v" }, //
+                { "--s", "v", "--i", "1", "--strings", "a", "--strings", "b", "--unknown", "x", "--b", "--ints", "3" }, //
+        };
+        for (var input : inputs) {
+            var expected = parse(false, input);
+            var actual = parse(true, input);
+            assertEquals(expected, actual, String.join(" ", input));
+        }
+    }
+
+    @Test
+    public void argsClassesOnlyConsumeTheirOwnOptions() {
+        var sut = with("-b", "3", "-a", "-c", "4");
+        assertEquals(3, sut.parse(TestArgsB.class).b);
+        var e = assertThrows(ParameterException.class, () -> {
+            sut.parse(TestArgsA.class);
+        });
+        assertEquals("\"-a\": couldn't convert \"-c\" to an integer", e.getMessage());
+    }
+
+    @Test
+    public void repeatedOptionsAreCollected() {
+        var args = new ArrayList<String>();
+        for (var i = 0; i < 500; i++) {
+            args.add("--strings");
+            args.add("s" + i);
+        }
+        args.add("--i");
+        args.add("7");
+        var actual = with(args.toArray(String[]::new)).parse(TestArgsAll.class);
+        assertEquals(500, actual.strings.size());
+        assertEquals("s499", actual.strings.get(499));
+        assertEquals(7, actual.i);
+    }
+
+    private static boolean hasBinder(Class<?> c) {
+        try {
+            Class.forName(ArgsBinders.binderName(c.getName()));
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static String parse(boolean canUseBinders, String... args) {
+        try {
+            var a = new ArgsParser(args, canUseBinders).parse(TestArgsAll.class);
+            return reflectionToString(a, SHORT_PREFIX_STYLE);
+        } catch (RuntimeException e) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+    public enum TestEnum {
+        AA, BB
+    }
+
+    public static class TestArgsAll {
+        @Parameter(names = { "-s", "--s" })
+        public String s = "def";
+        @Parameter(names = "--i")
+        public int i;
+        @Parameter(names = "--bi")
+        public Integer bi;
+        @Parameter(names = "--l")
+        public long l;
+        @Parameter(names = "--d")
+        public double d;
+        @Parameter(names = "--f")
+        public Float f;
+        @Parameter(names = "--b")
+        public boolean b;
+        @Parameter(names = "--bt")
+        public boolean bt = true;
+        @Parameter(names = "--bb")
+        public Boolean bb;
+        @Parameter(names = "--b1", arity = 1)
+        public boolean b1;
+        @Parameter(names = "--e")
+        public TestEnum e;
+        @Parameter(names = "--file")
+        public File file;
+        @Parameter(names = "--path")
+        public Path path;
+        @Parameter(names = "--strings")
+        public List<String> strings = new ArrayList<>(List.of("def"));
+        @Parameter(names = "--ints")
+        public List<Integer> ints;
+        @Parameter(names = "--enums")
+        public List<TestEnum> enums;
+    }
+
+    public static class TestArgsUnsupported {
+        @Parameter(names = "--x", converter = UpperCase.class)
+        public String x;
+    }
+
+    public static class UpperCase implements IStringConverter<String> {
+        @Override
+        public String convert(String value) {
+            return value.toUpperCase();
+        }
+    }
+
     public static class TestArgsA {
         @Parameter(names = "-a", arity = 1)
         public int a = 123;
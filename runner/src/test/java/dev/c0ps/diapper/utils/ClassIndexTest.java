@@ -0,0 +1,109 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static dev.c0ps.diapper.InjectorConfigProcessor.CONFIG_INDEX;
+import static dev.c0ps.diapper.InjectorConfigProcessor.RUNNABLE_INDEX;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ClassIndexTest {
+
+    @TempDir
+    private File tmp;
+
+    private File dirA;
+    private File dirB;
+    private File dirC;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        dirA = new File(tmp, "a");
+        dirB = new File(tmp, "b");
+        dirC = new File(tmp, "c");
+        write(dirA, CONFIG_INDEX, "x.C1\n\n# comment\nx.y.C2\n");
+        write(dirA, RUNNABLE_INDEX, "x.R1\n");
+        write(dirB, CONFIG_INDEX, "xx.C3\n");
+        dirC.mkdirs();
+    }
+
+    @Test
+    public void configsAreFilteredByPackage() throws IOException {
+        var sut = load();
+        assertEquals(Set.of("x.C1", "x.y.C2"), sut.getConfigs("x"));
+        assertEquals(Set.of("x.y.C2"), sut.getConfigs("x.y"));
+        assertEquals(Set.of("xx.C3"), sut.getConfigs("xx"));
+        assertEquals(Set.of(), sut.getConfigs("y"));
+    }
+
+    @Test
+    public void emptyPackageMatchesAll() throws IOException {
+        assertEquals(Set.of("x.C1", "x.y.C2", "xx.C3"), load().getConfigs(""));
+    }
+
+    @Test
+    public void runnablesAreRead() throws IOException {
+        assertEquals(Set.of("x.R1"), load().getRunnables());
+    }
+
+    @Test
+    public void indexedRootsAreDetected() throws IOException {
+        var sut = load();
+        assertTrue(sut.isIndexed(dirA.toURI().toURL()));
+        assertTrue(sut.isIndexed(dirB.toURI().toURL()));
+        assertFalse(sut.isIndexed(dirC.toURI().toURL()));
+    }
+
+    @Test
+    public void jarRootsAreNormalized() throws IOException {
+        var res = new URL("jar:file:/some/lib.jar!/" + CONFIG_INDEX);
+        assertEquals("file:/some/lib.jar", ClassIndex.toRoot(res, CONFIG_INDEX));
+        var dir = new URL("file:/some/classes/" + CONFIG_INDEX);
+        assertEquals("file:/some/classes", ClassIndex.toRoot(dir, CONFIG_INDEX));
+    }
+
+    @Test
+    public void emptyIndex() {
+        var sut = new ClassIndex();
+        assertEquals(Set.of(), sut.getConfigs(""));
+        assertEquals(Set.of(), sut.getRunnables());
+    }
+
+    private ClassIndex load() throws IOException {
+        var urls = new URL[] { dirA.toURI().toURL(), dirB.toURI().toURL(), dirC.toURI().toURL() };
+        try (var cl = new URLClassLoader(urls, null)) {
+            return ClassIndex.load(cl);
+        }
+    }
+
+    private static void write(File root, String path, String content) throws IOException {
+        var f = new File(root, path);
+        f.getParentFile().mkdirs();
+        Files.writeString(f.toPath(), content);
+    }
+}
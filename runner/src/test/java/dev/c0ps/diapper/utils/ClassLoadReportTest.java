@@ -0,0 +1,97 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static dev.c0ps.test.TestLoggerUtils.getFormattedLogs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.c0ps.diapper.utils.StartupTimer.Span;
+import dev.c0ps.test.TestLoggerUtils;
+
+public class ClassLoadReportTest {
+
+    @BeforeEach
+    public void setup() {
+        TestLoggerUtils.clearLog();
+    }
+
+    @Test
+    public void classLoadsAreAttributedToPhases() throws Exception {
+        var timer = new StartupTimer();
+        var sut = ClassLoadReport.start();
+        // an isolated loader defines a new class, even if it has been loaded before
+        var root = NotYetLoaded.class.getProtectionDomain().getCodeSource().getLocation();
+        try (var cl = new URLClassLoader(new URL[] { root }, null)) {
+            timer.time("load", () -> {
+                try {
+                    return Class.forName(NotYetLoaded.class.getName(), false, cl);
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        sut.report(timer.spans());
+
+        var logs = getFormattedLogs(ClassLoadReport.class);
+        assertEquals(2, logs.size());
+        assertTrue(logs.get(0).startsWith("INFO Loaded "), logs.get(0));
+        assertTrue(logs.get(0).contains("  load\n") || logs.get(0).endsWith("  load"), logs.get(0));
+        assertTrue(logs.get(1).startsWith("INFO Classes loaded per source:\n"), logs.get(1));
+    }
+
+    @Test
+    public void innermostSpanIsUsed() {
+        var tid = Thread.currentThread().getId();
+        var spans = List.of( //
+                new Span("outer", "x", 0, 100, Map.of()), //
+                new Span("inner", "x", 10, 20, Map.of()));
+        assertEquals("inner", ClassLoadReport.phase(spans, tid, 15));
+        assertEquals("outer", ClassLoadReport.phase(spans, tid, 50));
+        assertEquals("(outside of startup phases)", ClassLoadReport.phase(spans, tid, 150));
+        assertEquals("(outside of startup phases)", ClassLoadReport.phase(spans, tid + 1, 15));
+    }
+
+    @Test
+    public void sourceOfJdkClass() {
+        assertEquals("jrt:/java.base", ClassLoadReport.source(String.class.getName()));
+    }
+
+    @Test
+    public void sourceOfJarClass() {
+        assertTrue(ClassLoadReport.source(Test.class.getName()).startsWith("junit-jupiter-api"));
+    }
+
+    @Test
+    public void sourceOfDirectoryClass() {
+        assertTrue(ClassLoadReport.source(ClassLoadReportTest.class.getName()).endsWith("/test-classes/"));
+    }
+
+    @Test
+    public void sourceOfGeneratedClass() {
+        assertEquals("(generated)", ClassLoadReport.source("a.b.C$$Lambda$1"));
+    }
+
+    private static class NotYetLoaded {}
+}
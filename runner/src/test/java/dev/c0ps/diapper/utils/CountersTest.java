@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CountersTest {
+
+    private Counters sut;
+
+    @BeforeEach
+    public void setup() {
+        sut = new Counters();
+    }
+
+    @Test
+    public void unknownCounterIsZero() {
+        assertEquals(0, sut.get("a"));
+    }
+
+    @Test
+    public void countersCanBeIncremented() {
+        sut.increment("a");
+        sut.add("a", 2);
+        assertEquals(3, sut.get("a"));
+    }
+
+    @Test
+    public void countersCanBeSet() {
+        sut.add("a", 2);
+        sut.set("a", 7);
+        assertEquals(7, sut.get("a"));
+    }
+
+    @Test
+    public void snapshotIsSorted() {
+        sut.set("b", 2);
+        sut.set("a", 1);
+        assertEquals(Map.of("a", 1L, "b", 2L), sut.snapshot());
+        assertEquals("{a=1, b=2}", sut.snapshot().toString());
+    }
+}
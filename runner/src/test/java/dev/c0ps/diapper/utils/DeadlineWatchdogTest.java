@@ -0,0 +1,123 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static dev.c0ps.test.TestLoggerUtils.getFormattedLogs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.c0ps.test.TestLoggerUtils;
+
+public class DeadlineWatchdogTest {
+
+    @BeforeEach
+    public void setup() {
+        TestLoggerUtils.clearLog();
+    }
+
+    @Test
+    public void noDumpBeforeDeadline() {
+        var sut = DeadlineWatchdog.start("a.b.C", 60_000, 60_000, null);
+        sut.stop();
+        assertEquals(0, getFormattedLogs(DeadlineWatchdog.class).size());
+    }
+
+    @Test
+    public void dumpIsRepeated() throws InterruptedException {
+        var sut = DeadlineWatchdog.start("a.b.C", 1, 1, null);
+        try {
+            while (getFormattedLogs(DeadlineWatchdog.class).size() < 2) {
+                Thread.sleep(1);
+            }
+        } finally {
+            sut.stop();
+        }
+        var logs = getFormattedLogs(DeadlineWatchdog.class);
+        assertTrue(logs.get(0).startsWith("WARN a.b.C has exceeded its deadline of 1 ms (dump #1):\n"), logs.get(0));
+        assertTrue(logs.get(1).startsWith("WARN a.b.C has exceeded its deadline of 1 ms (dump #2):\n"), logs.get(1));
+    }
+
+    @Test
+    public void zeroIntervalDumpsOnce() throws InterruptedException {
+        var sut = DeadlineWatchdog.start("a.b.C", 1, 0, null);
+        try {
+            while (getFormattedLogs(DeadlineWatchdog.class).isEmpty()) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(50);
+        } finally {
+            sut.stop();
+        }
+        assertEquals(1, getFormattedLogs(DeadlineWatchdog.class).size());
+    }
+
+    @Test
+    public void exitCodeTerminates() {
+        var codes = new ArrayList<Integer>();
+        var sut = new DeadlineWatchdog("a.b.C", 1, 3, codes::add);
+        sut.expire();
+        assertEquals(List.of(3), codes);
+        var logs = getFormattedLogs(DeadlineWatchdog.class);
+        assertEquals(2, logs.size());
+        assertEquals("ERROR Terminating the VM with exit code 3 ...", logs.get(1));
+    }
+
+    @Test
+    public void noExitWithoutExitCode() {
+        var codes = new ArrayList<Integer>();
+        var sut = new DeadlineWatchdog("a.b.C", 1, null, codes::add);
+        sut.expire();
+        assertEquals(List.of(), codes);
+        assertEquals(1, getFormattedLogs(DeadlineWatchdog.class).size());
+    }
+
+    @Test
+    public void dumpIncludesAllFramesAndLockOwner() throws InterruptedException {
+        var lock = new Object();
+        var started = new CountDownLatch(1);
+        var blocked = new Thread(() -> {
+            started.countDown();
+            synchronized (lock) {
+                // wait for the lock
+            }
+        }, "blocked-thread");
+        synchronized (lock) {
+            blocked.start();
+            started.await();
+            var mx = ManagementFactory.getThreadMXBean();
+            while (mx.getThreadInfo(blocked.getId()).getThreadState() != Thread.State.BLOCKED) {
+                Thread.sleep(1);
+            }
+            var dump = DeadlineWatchdog.threadDump();
+            var owner = Thread.currentThread();
+            var expected = String.format("\"blocked-thread\" #%d BLOCKED on java.lang.Object@%s owned by \"%s\" #%d\n", //
+                    blocked.getId(), Integer.toHexString(System.identityHashCode(lock)), owner.getName(), owner.getId());
+            assertTrue(dump.contains(expected), dump);
+            assertTrue(dump.contains("\t-  locked java.lang.Object@"), dump);
+            // the stack of the current thread is deeper than the 8 frames of ThreadInfo#toString
+            assertTrue(dump.contains("org.junit.platform"), dump);
+        }
+        blocked.join();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import dev.c0ps.diapper.JvmProfile;
+import dev.c0ps.diapper.JvmProfile.Gc;
+
+public class JvmProfileFlagsTest {
+
+    @Test
+    public void emptyProfile() {
+        var sut = new JvmProfileFlags(profile(Empty.class));
+        assertEquals(List.of(), sut.flags());
+        assertTrue(sut.isSatisfiedBy(List.of()));
+        assertFalse(sut.isReplaced("-Xmx1g"));
+    }
+
+    @Test
+    public void fullProfile() {
+        var sut = new JvmProfileFlags(profile(Full.class));
+        var expected = List.of("-XX:MaxRAMPercentage=75.0", "-XX:+UseSerialGC", "-XX:SharedArchiveFile=app.jsa", "-XX:TieredStopAtLevel=1", "-Xss512k");
+        assertEquals(expected, sut.flags());
+    }
+
+    @Test
+    public void isSatisfiedByMatchingVm() {
+        var sut = new JvmProfileFlags(profile(Full.class));
+        assertFalse(sut.isSatisfiedBy(List.of("-XX:+UseSerialGC")));
+        var args = List.of("-Dx=1", "-XX:MaxRAMPercentage=75.0", "-XX:+UseSerialGC", "-XX:SharedArchiveFile=app.jsa", "-XX:TieredStopAtLevel=1", "-Xss512k");
+        assertTrue(sut.isSatisfiedBy(args));
+    }
+
+    @Test
+    public void conflictingFlagsAreReplaced() {
+        var sut = new JvmProfileFlags(profile(Full.class));
+        assertTrue(sut.isReplaced("-Xmx1g"));
+        assertTrue(sut.isReplaced("-XX:MaxRAMPercentage=50"));
+        assertTrue(sut.isReplaced("-XX:+UseG1GC"));
+        assertTrue(sut.isReplaced("-XX:SharedArchiveFile=other.jsa"));
+        assertTrue(sut.isReplaced("-XX:TieredStopAtLevel=4"));
+        assertFalse(sut.isReplaced("-XX:+UseCompressedOops"));
+        assertFalse(sut.isReplaced("-Dx=1"));
+    }
+
+    @Test
+    public void equivalentValuesMatch() {
+        var sut = new JvmProfileFlags(profile(Full.class));
+        var args = List.of("-XX:MaxRAMPercentage=75", "-XX:+UseSerialGC", "-XX:SharedArchiveFile=app.jsa", "-XX:TieredStopAtLevel=1", "-Xss524288");
+        assertTrue(sut.isSatisfiedBy(args));
+        assertTrue(JvmProfileFlags.isEquivalent("-Xss1m", "-Xss1024k"));
+        assertTrue(JvmProfileFlags.isEquivalent("-XX:MaxRAMPercentage=75", "-XX:MaxRAMPercentage=75.0"));
+        assertFalse(JvmProfileFlags.isEquivalent("-Xss1m", "-Xss1g"));
+        assertFalse(JvmProfileFlags.isEquivalent("-XX:+UseSerialGC", "-XX:-UseSerialGC"));
+    }
+
+    @Test
+    public void differingValuesOverrideProfile() {
+        var sut = new JvmProfileFlags(profile(Full.class));
+        var args = List.of("-Xmx1g", "-XX:+UseG1GC", "-XX:SharedArchiveFile=other.jsa", "-XX:TieredStopAtLevel=4", "-Xss1m");
+        assertTrue(sut.isSatisfiedBy(args));
+    }
+
+    @Test
+    public void onlyMissingFlagsAreReturned() {
+        var sut = new JvmProfileFlags(profile(Full.class));
+        var missing = sut.missing(List.of("-Dx=1", "-Xmx1g", "-XX:+UseSerialGC"));
+        assertEquals(List.of("-XX:SharedArchiveFile=app.jsa", "-XX:TieredStopAtLevel=1", "-Xss512k"), missing);
+    }
+
+    @Test
+    public void outOfRangeValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new JvmProfileFlags(profile(TooMuchRam.class)));
+        assertThrows(IllegalArgumentException.class, () -> new JvmProfileFlags(profile(UnknownTier.class)));
+    }
+
+    @Test
+    public void onlyDeclaredFlagsAreReplaced() {
+        var sut = new JvmProfileFlags(profile(GcOnly.class));
+        assertEquals(List.of("-XX:+UseParallelGC"), sut.flags());
+        assertTrue(sut.isReplaced("-XX:+UseSerialGC"));
+        assertFalse(sut.isReplaced("-Xmx1g"));
+    }
+
+    private static JvmProfile profile(Class<?> c) {
+        return c.getAnnotation(JvmProfile.class);
+    }
+
+    @JvmProfile
+    private static class Empty {}
+
+    @JvmProfile(maxRamPercentage = 75, gc = Gc.SERIAL, cdsArchive = "app.jsa", tieredStopAtLevel = 1, jvmArgs = "-Xss512k")
+    private static class Full {}
+
+    @JvmProfile(gc = Gc.PARALLEL)
+    private static class GcOnly {}
+
+    @JvmProfile(maxRamPercentage = 150)
+    private static class TooMuchRam {}
+
+    @JvmProfile(tieredStopAtLevel = 5)
+    private static class UnknownTier {}
+}
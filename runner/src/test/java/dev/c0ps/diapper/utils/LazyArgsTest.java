@@ -0,0 +1,99 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Provides;
+
+import dev.c0ps.diapper.InjectorConfigBase;
+
+public class LazyArgsTest {
+
+    private List<Object> parsed;
+    private LazyArgs sut;
+
+    @BeforeEach
+    public void setup() {
+        parsed = new ArrayList<>();
+        sut = new LazyArgs((type, obj) -> parsed.add(obj));
+    }
+
+    @Test
+    public void emptyByDefault() {
+        assertTrue(sut.isEmpty());
+        sut.parseFor(Object.class);
+        assertEquals(List.of(), parsed);
+    }
+
+    @Test
+    public void parseNowParsesOnce() {
+        sut.defer(String.class, "a");
+        assertFalse(sut.isEmpty());
+        sut.parseNow(String.class);
+        sut.parseNow(String.class);
+        assertEquals(List.of("a"), parsed);
+        assertTrue(sut.isEmpty());
+    }
+
+    @Test
+    public void onlyArgsOfMatchingConfigsAreParsed() {
+        sut.defer(String.class, "a");
+        sut.defer(Integer.class, 1);
+        sut.register(Config.class, String.class);
+        sut.register(Object.class, Integer.class);
+        sut.parseFor(Config.class);
+        assertEquals(List.of("a"), parsed);
+        sut.parseFor(Config.class);
+        assertEquals(List.of("a"), parsed);
+    }
+
+    @Test
+    public void superTypesMatchSubclassConfigs() {
+        sut.defer(String.class, "a");
+        sut.register(SubConfig.class, String.class);
+        sut.parseFor(Config.class);
+        assertEquals(List.of("a"), parsed);
+    }
+
+    @Test
+    public void providerMethodsTriggerParsing() {
+        sut.defer(String.class, "a");
+        sut.register(Config.class, String.class);
+        var injector = Guice.createInjector(new Config(), sut);
+        assertEquals(List.of(), parsed);
+        assertEquals(1, injector.getInstance(Integer.class));
+        assertEquals(List.of("a"), parsed);
+    }
+
+    public static class Config extends InjectorConfigBase {
+        @Provides
+        public Integer provideInt() {
+            return 1;
+        }
+    }
+
+    public static class SubConfig extends Config {}
+}
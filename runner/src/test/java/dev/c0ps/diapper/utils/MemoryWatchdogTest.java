@@ -0,0 +1,100 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static dev.c0ps.test.TestLoggerUtils.getFormattedLogs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.c0ps.test.TestLoggerUtils;
+
+public class MemoryWatchdogTest {
+
+    @TempDir
+    private File tempDir;
+
+    @BeforeEach
+    public void setup() {
+        TestLoggerUtils.clearLog();
+    }
+
+    @Test
+    public void thresholdsAreSetAndReset() {
+        var sut = MemoryWatchdog.start(0.9, null);
+        try {
+            assertFalse(sut.poolNames().isEmpty());
+            for (var pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (sut.poolNames().contains(pool.getName())) {
+                    assertEquals((long) (pool.getUsage().getMax() * 0.9), pool.getCollectionUsageThreshold());
+                }
+            }
+        } finally {
+            sut.stop();
+        }
+        for (var pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (sut.poolNames().contains(pool.getName())) {
+                assertEquals(0, pool.getCollectionUsageThreshold());
+            }
+        }
+    }
+
+    @Test
+    public void histogramIsAvailable() {
+        var histogram = MemoryWatchdog.histogram();
+        assertTrue(histogram.contains("#instances"), histogram);
+        assertTrue(histogram.endsWith("more lines)"), histogram);
+    }
+
+    @Test
+    public void reportIncludesHeapDump() {
+        var sut = new MemoryWatchdog(0.9, tempDir);
+        sut.report();
+        var logs = getFormattedLogs(MemoryWatchdog.class);
+        assertEquals(2, logs.size());
+        assertTrue(logs.get(0).startsWith("WARN Class histogram:\n"), logs.get(0));
+        assertTrue(logs.get(1).startsWith("WARN Heap dump has been written to "), logs.get(1));
+        var files = tempDir.listFiles();
+        assertEquals(1, files.length);
+        assertTrue(files[0].getName().endsWith(".hprof"));
+    }
+
+    @Test
+    public void heapIsDumpedOnlyOnce() {
+        var sut = new MemoryWatchdog(0.9, tempDir, 0);
+        sut.report();
+        sut.report();
+        var logs = getFormattedLogs(MemoryWatchdog.class);
+        assertEquals(3, logs.size());
+        assertTrue(logs.get(2).startsWith("WARN Class histogram:\n"), logs.get(2));
+        assertEquals(1, tempDir.listFiles().length);
+    }
+
+    @Test
+    public void reportsAreRateLimited() {
+        var sut = new MemoryWatchdog(0.9, null);
+        sut.report();
+        sut.report();
+        assertEquals(1, getFormattedLogs(MemoryWatchdog.class).size());
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static dev.c0ps.test.TestLoggerUtils.assertLogsContain;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.inject.Binder;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.google.inject.Provides;
+import com.google.inject.matcher.Matchers;
+import com.google.inject.name.Named;
+import com.google.inject.spi.ProvisionListener;
+
+import dev.c0ps.diapper.InjectorConfigBase;
+import dev.c0ps.test.TestLoggerUtils;
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+
+public class ModulePrunerTest {
+
+    @BeforeEach
+    public void setup() {
+        TestLoggerUtils.clearLog();
+    }
+
+    @Test
+    public void unreachableModulesAreDropped() {
+        var sut = prune(NeedsString.class, new StringConfig(), new IntConfig());
+        assertEquals(Set.of(name(StringConfig.class)), sut.kept());
+        assertEquals(Set.of(name(IntConfig.class)), sut.dropped());
+        assertEquals("binds Key[type=java.lang.String, annotation=[none]]", sut.reason(name(StringConfig.class)));
+    }
+
+    @Test
+    public void dependenciesOfKeptModulesAreKept() {
+        // the unused binding of StringAndLongConfig depends on IntConfig
+        var sut = prune(NeedsString.class, new StringAndLongConfig(), new IntConfig(), new DoubleConfig());
+        assertEquals(Set.of(name(StringAndLongConfig.class), name(IntConfig.class)), sut.kept());
+        assertEquals(Set.of(name(DoubleConfig.class)), sut.dropped());
+    }
+
+    @Test
+    public void providersAreUnwrapped() {
+        var sut = prune(NeedsStringProvider.class, new StringConfig(), new IntConfig());
+        assertEquals(Set.of(name(StringConfig.class)), sut.kept());
+    }
+
+    @Test
+    public void jitBindingsAreFollowed() {
+        var sut = prune(NeedsJit.class, new StringConfig(), new IntConfig(), new DoubleConfig());
+        assertEquals(Set.of(name(StringConfig.class), name(DoubleConfig.class)), sut.kept());
+    }
+
+    @Test
+    public void annotatedKeysAreDistinguished() {
+        var sut = prune(NeedsNamed.class, new StringConfig(), new NamedStringConfig());
+        assertEquals(Set.of(name(NamedStringConfig.class)), sut.kept());
+    }
+
+    @Test
+    public void listenersAreAlwaysKept() {
+        var sut = prune(NeedsString.class, new StringConfig(), new ListenerConfig());
+        assertEquals(Set.of(name(StringConfig.class), name(ListenerConfig.class)), sut.kept());
+        assertEquals("registers ProvisionListenerBinding", sut.reason(name(ListenerConfig.class)));
+    }
+
+    @Test
+    public void eagerSingletonsAreAlwaysKept() {
+        var sut = prune(NeedsString.class, new StringConfig(), new EagerConfig(), new InstanceConfig());
+        assertEquals(Set.of(name(StringConfig.class), name(EagerConfig.class)), sut.kept());
+    }
+
+    @Test
+    public void injectorKeepsAllModules() {
+        var sut = prune(NeedsInjector.class, new StringConfig(), new IntConfig());
+        assertEquals(Set.of(name(StringConfig.class), name(IntConfig.class)), sut.kept());
+        assertEquals(Set.of(), sut.dropped());
+    }
+
+    @Test
+    public void prunedModuleCanProvisionRoot() {
+        var sut = prune(NeedsJit.class, new StringConfig(), new IntConfig(), new DoubleConfig());
+        var injector = Guice.createInjector(sut.pruned());
+        assertNotNull(injector.getInstance(NeedsJit.class));
+        assertEquals(null, injector.getExistingBinding(com.google.inject.Key.get(Integer.class)));
+    }
+
+    @Test
+    public void allModulesAreConfiguredOnce() {
+        var config = new CountingConfig();
+        var sut = prune(NeedsString.class, new StringConfig(), config);
+        Guice.createInjector(sut.all());
+        Guice.createInjector(sut.pruned());
+        assertEquals(1, config.count);
+    }
+
+    @Test
+    public void explainReportsDecisions() {
+        prune(NeedsString.class, new StringConfig(), new IntConfig()).explain();
+        assertLogsContain(ModulePruner.class, "INFO Keeping 1 of 2 modules to provision %s:", NeedsString.class.getName());
+        assertLogsContain(ModulePruner.class, "INFO   kept    %s (binds Key[type=java.lang.String, annotation=[none]])", name(StringConfig.class));
+        assertLogsContain(ModulePruner.class, "INFO   dropped %s (no reachable binding)", name(IntConfig.class));
+    }
+
+    private static ModulePruner prune(Class<?> root, Module... modules) {
+        var sut = new ModulePruner(List.of(modules), root);
+        assertTrue(sut.kept().size() + sut.dropped().size() == modules.length);
+        return sut;
+    }
+
+    private static String name(Class<?> c) {
+        return c.getName();
+    }
+
+    public static class StringConfig extends InjectorConfigBase {
+        @Provides
+        public String provideString() {
+            return "s";
+        }
+    }
+
+    public static class NamedStringConfig extends InjectorConfigBase {
+        @Provides
+        @Named("x")
+        public String provideString() {
+            return "x";
+        }
+    }
+
+    public static class IntConfig extends InjectorConfigBase {
+        @Provides
+        public Integer provideInt() {
+            return 1;
+        }
+    }
+
+    public static class DoubleConfig extends InjectorConfigBase {
+        @Provides
+        public Double provideDouble() {
+            return 1.0;
+        }
+    }
+
+    public static class StringAndLongConfig extends InjectorConfigBase {
+        @Provides
+        public String provideString() {
+            return "s";
+        }
+
+        @Provides
+        public Long provideLong(Integer i) {
+            return (long) i;
+        }
+    }
+
+    public static class ListenerConfig extends InjectorConfigBase {
+        @Override
+        public void configure(Binder binder) {
+            binder.bindListener(Matchers.any(), new ProvisionListener() {
+                @Override
+                public <T> void onProvision(ProvisionInvocation<T> provision) {}
+            });
+        }
+    }
+
+    public static class EagerConfig extends InjectorConfigBase {
+        @Override
+        public void configure(Binder binder) {
+            binder.bind(NeedsString.class).asEagerSingleton();
+        }
+    }
+
+    public static class InstanceConfig extends InjectorConfigBase {
+        @Override
+        public void configure(Binder binder) {
+            binder.bind(Integer.class).toInstance(1);
+        }
+    }
+
+    public static class CountingConfig extends InjectorConfigBase {
+        public int count;
+
+        @Override
+        public void configure(Binder binder) {
+            count++;
+        }
+    }
+
+    public static class NeedsString {
+        @Inject
+        public NeedsString(String s) {}
+    }
+
+    public static class NeedsNamed {
+        @Inject
+        public NeedsNamed(@Named("x") String s) {}
+    }
+
+    public static class NeedsStringProvider {
+        @Inject
+        public NeedsStringProvider(Provider<String> s) {}
+    }
+
+    public static class NeedsJit {
+        @Inject
+        public Double d;
+
+        @Inject
+        public NeedsJit(NeedsString ns) {}
+    }
+
+    public static class NeedsInjector {
+        @Inject
+        public NeedsInjector(Injector i) {}
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.inject.Binder;
+import com.google.inject.Binding;
+import com.google.inject.CreationException;
+import com.google.inject.Guice;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.Provides;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
+import com.google.inject.spi.Message;
+
+import dev.c0ps.diapper.AssertArgsError;
+import dev.c0ps.diapper.InjectorConfigBase;
+
+public class ModuleRecorderTest {
+
+    private ExecutorService pool;
+
+    @BeforeEach
+    public void setup() {
+        pool = ThreadPools.newPool("test", 4);
+    }
+
+    @AfterEach
+    public void teardown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void sameElementsAreRecorded() {
+        var modules = List.of(new StringConfig(), new IntConfig());
+        var expected = keys(Elements.getElements(modules));
+        assertEquals(expected, keys(ModuleRecorder.record(modules, pool)));
+        assertEquals(expected, keys(ModuleRecorder.record(modules, null)));
+    }
+
+    @Test
+    public void modulesAreConfiguredOnPool() {
+        var a = new ThreadConfig();
+        var b = new ThreadConfig();
+        ModuleRecorder.record(List.of(a, b), pool);
+        assertTrue(a.thread.getName().startsWith("test-"));
+        assertTrue(b.thread.getName().startsWith("test-"));
+    }
+
+    @Test
+    public void injectorCanBeCreatedFromElements() {
+        var elements = ModuleRecorder.record(List.of(new StringConfig(), new IntConfig()), pool);
+        var injector = Guice.createInjector(Elements.getModule(elements));
+        assertEquals("s", injector.getInstance(String.class));
+        assertEquals(1, injector.getInstance(Integer.class));
+    }
+
+    @Test
+    public void configureFailuresAreReportedByInjector() {
+        var elements = ModuleRecorder.record(List.of(new StringConfig(), new FailingConfig()), pool);
+        assertTrue(elements.stream().anyMatch(e -> e instanceof Message));
+        assertThrows(CreationException.class, () -> {
+            Guice.createInjector(Elements.getModule(elements));
+        });
+    }
+
+    @Test
+    public void assertArgsErrorsArePropagated() {
+        var e = new AssertArgsError();
+        var actual = assertThrows(AssertArgsError.class, () -> {
+            ModuleRecorder.record(List.of(new StringConfig(), new AssertingConfig(e)), pool);
+        });
+        assertSame(e, actual);
+    }
+
+    private static Set<Key<?>> keys(List<Element> elements) {
+        var keys = new HashSet<Key<?>>();
+        for (var e : elements) {
+            if (e instanceof Binding) {
+                keys.add(((Binding<?>) e).getKey());
+            }
+        }
+        return keys;
+    }
+
+    public static class StringConfig extends InjectorConfigBase {
+        @Provides
+        public String provideString() {
+            return "s";
+        }
+    }
+
+    public static class IntConfig extends InjectorConfigBase {
+        @Override
+        public void configure(Binder binder) {
+            binder.bind(Integer.class).toInstance(1);
+        }
+    }
+
+    public static class ThreadConfig extends InjectorConfigBase {
+        public Thread thread;
+
+        @Override
+        public void configure(Binder binder) {
+            thread = Thread.currentThread();
+        }
+    }
+
+    public static class FailingConfig extends InjectorConfigBase {
+        @Override
+        public void configure(Binder binder) {
+            throw new IllegalStateException("x");
+        }
+    }
+
+    public static class AssertingConfig implements Module {
+        private final AssertArgsError e;
+
+        public AssertingConfig(AssertArgsError e) {
+            this.e = e;
+        }
+
+        @Override
+        public void configure(Binder binder) {
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static dev.c0ps.test.TestLoggerUtils.getFormattedLogs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.matcher.Matchers;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
+
+import dev.c0ps.test.TestLoggerUtils;
+import jakarta.inject.Singleton;
+
+public class ProvisionProfilerTest {
+
+    private ProvisionProfiler sut;
+    private Injector injector;
+
+    @BeforeEach
+    public void setup() {
+        TestLoggerUtils.clearLog();
+        sut = new ProvisionProfiler(1, 3, 10_000);
+        injector = Guice.createInjector(new TestModule(), binder -> binder.bindListener(Matchers.any(), sut));
+    }
+
+    @Test
+    public void provisionsAreCounted() {
+        for (var i = 0; i < 3; i++) {
+            injector.getInstance(String.class);
+        }
+        var stats = stats(Key.get(String.class));
+        assertEquals(3, stats.count());
+        assertTrue(stats.isUnscoped);
+        assertTrue(stats.totalNanos() >= stats.maxNanos());
+    }
+
+    @Test
+    public void singletonsAreScoped() {
+        injector.getInstance(Integer.class);
+        injector.getInstance(Integer.class);
+        var stats = stats(Key.get(Integer.class));
+        assertEquals(1, stats.count());
+        assertFalse(stats.isUnscoped);
+    }
+
+    @Test
+    public void oftenProvisionedUnscopedBindingsAreFlagged() {
+        for (var i = 0; i < 3; i++) {
+            injector.getInstance(String.class);
+            injector.getInstance(Integer.class);
+        }
+        assertTrue(sut.isOften(stats(Key.get(String.class))));
+        assertFalse(sut.isOften(stats(Key.get(Integer.class))));
+        assertFalse(sut.isSlow(stats(Key.get(String.class))));
+    }
+
+    @Test
+    public void slowUnscopedBindingsAreFlagged() {
+        sut = new ProvisionProfiler(1, 3, 0);
+        injector = Guice.createInjector(new TestModule(), binder -> binder.bindListener(Matchers.any(), sut));
+        injector.getInstance(String.class);
+        assertTrue(sut.isSlow(stats(Key.get(String.class))));
+    }
+
+    @Test
+    public void reportIsLimitedToTop() {
+        for (var i = 0; i < 3; i++) {
+            injector.getInstance(String.class);
+        }
+        injector.getInstance(Key.get(Long.class, Names.named("x")));
+        sut.report();
+        var logs = getFormattedLogs(ProvisionProfiler.class);
+        assertEquals(2, logs.size());
+        assertTrue(logs.get(0).startsWith("INFO Provisioned 2 bindings 4 times, top 1 by cumulative time:\n"), logs.get(0));
+        assertEquals(2, logs.get(0).split("\n").length);
+        assertEquals("WARN Unscoped binding java.lang.String has been provisioned 3 times, consider a scope like @Singleton", logs.get(1));
+    }
+
+    @Test
+    public void emptyReport() {
+        sut.report();
+        assertEquals(0, getFormattedLogs(ProvisionProfiler.class).size());
+    }
+
+    private ProvisionProfiler.Stats stats(Key<?> key) {
+        for (var s : sut.stats()) {
+            if (s.key.equals(key)) {
+                return s;
+            }
+        }
+        throw new AssertionError(key);
+    }
+
+    private static class TestModule extends AbstractModule {
+
+        @Provides
+        public String provideString() {
+            return "x";
+        }
+
+        @Provides
+        @Singleton
+        public Integer provideInt(String s) {
+            return s.length();
+        }
+
+        @Provides
+        @Named("x")
+        public Long provideLong() {
+            return 1L;
+        }
+    }
+}
@@ -21,25 +21,49 @@ import static java.lang.String.format;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
 import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.HashSet;
 import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import com.google.inject.Binder;
+import com.google.inject.Guice;
+import com.google.inject.Provides;
+
+import dev.c0ps.diapper.AssertArgsError;
 import dev.c0ps.diapper.IInjectorConfig;
+import dev.c0ps.diapper.InjectorConfig;
 import dev.c0ps.diapper.InjectorConfigBase;
+import dev.c0ps.diapper.InjectorConfigProcessor;
 import dev.c0ps.test.TestLoggerUtils;
+import other.NoLongerAConfig;
+import other.OtherConfig;
+import other2.YetAnotherConfig;
 
 public class ReflectionUtilsTest {
 
     private static final String NL = System.lineSeparator();
     private static final String BASE_PKG = ReflectionUtils.class.getPackageName();
 
+    @TempDir
+    private File tempDir;
+
     private ArgsParser argsParser;
     private ReflectionUtils sut;
 
@@ -116,6 +140,143 @@ public class ReflectionUtilsTest {
                 M2.class.getName());
     }
 
+    @Test
+    public void indexedModulesAreFound() throws Exception {
+        var actual = new ReflectionUtils(InjectorConfig.class, argsParser).loadModules("other", "other2");
+        assertEquals(2, actual.size());
+        var types = new HashSet<Class<?>>();
+        actual.forEach(m -> types.add(m.getClass()));
+        assertEquals(Set.of(OtherConfig.class, YetAnotherConfig.class), types);
+    }
+
+    @Test
+    public void staleIndexEntriesAreSkipped() throws Exception {
+        var index = new File(tempDir, InjectorConfigProcessor.CONFIG_INDEX);
+        index.getParentFile().mkdirs();
+        Files.writeString(index.toPath(), NoLongerAConfig.class.getName() + "\n");
+        var t = Thread.currentThread();
+        var before = t.getContextClassLoader();
+        try (var cl = new URLClassLoader(new URL[] { tempDir.toURI().toURL() }, before)) {
+            t.setContextClassLoader(cl);
+            var actual = new ReflectionUtils(InjectorConfig.class, argsParser).loadModules("other");
+            assertEquals(1, actual.size());
+            assertTrue(actual.iterator().next() instanceof OtherConfig);
+        } finally {
+            t.setContextClassLoader(before);
+        }
+        assertLogsContain(ReflectionUtils.class, "WARN Skipping class %s, which is not annotated with @InjectorConfig", NoLongerAConfig.class.getName());
+    }
+
+    @Test
+    public void scanResultsAreCached() throws Exception {
+        var cache = new ScanCache(tempDir, OnlyNoArgsConstructor.class);
+        sut = new ReflectionUtils(OnlyNoArgsConstructor.class, argsParser);
+        sut.setScanCache(cache);
+        assertEquals(1, sut.loadModules(BASE_PKG).size());
+        assertEquals(0, cache.getHits());
+        assertTrue(cache.getMisses() > 0);
+        cache.store();
+
+        cache = new ScanCache(tempDir, OnlyNoArgsConstructor.class);
+        sut = new ReflectionUtils(OnlyNoArgsConstructor.class, argsParser);
+        sut.setScanCache(cache);
+        var actual = sut.loadModules(BASE_PKG);
+        assertEquals(1, actual.size());
+        assertTrue(actual.iterator().next() instanceof M3);
+        assertTrue(cache.getHits() > 0);
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    public void overlappingPackagesAreLoadedOnce() {
+        sut = new ReflectionUtils(OnlyNoArgsConstructor.class, argsParser);
+        var actual = sut.loadModules(BASE_PKG, "dev.c0ps", BASE_PKG);
+        assertEquals(1, actual.size());
+        assertTrue(actual.iterator().next() instanceof M3);
+    }
+
+    @Test
+    public void allPackagesAreSearched() {
+        sut = new ReflectionUtils(OnlyNoArgsConstructor.class, argsParser);
+        sut.loadModules(BASE_PKG, "other");
+        assertLogsContain(ReflectionUtils.class, "INFO Searching for @%s in package %s ...", OnlyNoArgsConstructor.class.getSimpleName(), BASE_PKG);
+        assertLogsContain(ReflectionUtils.class, "INFO Searching for @%s in package %s ...", OnlyNoArgsConstructor.class.getSimpleName(), "other");
+    }
+
+    @Test
+    public void parallelScanningFindsSameModules() {
+        sut = new ReflectionUtils(InjectorConfig.class, argsParser);
+        var expected = types(sut.loadModules(BASE_PKG, "other", "other2"));
+        ReflectionUtils.PARSED_ARGS.clear();
+        sut = new ReflectionUtils(InjectorConfig.class, argsParser);
+        sut.setScanThreads(4);
+        assertEquals(expected, types(sut.loadModules(BASE_PKG, "other", "other2")));
+    }
+
+    @Test
+    public void parallelScanningUsesCache() {
+        var cache = new ScanCache(tempDir, OnlyNoArgsConstructor.class);
+        sut = new ReflectionUtils(OnlyNoArgsConstructor.class, argsParser);
+        sut.setScanCache(cache);
+        sut.setScanThreads(4);
+        assertEquals(1, sut.loadModules(BASE_PKG, "other").size());
+        assertEquals(1, sut.loadModules(BASE_PKG, "other").size());
+        assertEquals(cache.getMisses(), cache.getHits());
+    }
+
+    @Test
+    public void concurrentLoadingFindsSameModules() {
+        sut = new ReflectionUtils(InjectorConfig.class, argsParser);
+        var expected = types(sut.loadModules(BASE_PKG, "other", "other2"));
+        ReflectionUtils.PARSED_ARGS.clear();
+        var pool = ThreadPools.newPool("test", 4);
+        try {
+            sut = new ReflectionUtils(InjectorConfig.class, argsParser);
+            sut.setScanThreads(4);
+            sut.setStartupExecutor(pool);
+            assertEquals(expected, types(sut.loadModules(BASE_PKG, "other", "other2")));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void concurrentLoadingParsesSharedArgsOnce() {
+        var pool = ThreadPools.newPool("test", 4);
+        try {
+            sut = new ReflectionUtils(CachesParsing.class, argsParser);
+            sut.setStartupExecutor(pool);
+            var actual = (M9) sut.loadModules(BASE_PKG).iterator().next();
+            assertSame(actual.args1, actual.args2);
+            verify(argsParser, times(1)).parse(Args.class);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void concurrentLoadingFailsOnAssertArgsErrors() {
+        when(argsParser.parse(Args1.class)).thenThrow(new AssertArgsError());
+        var pool = ThreadPools.newPool("test", 4);
+        try {
+            sut = new ReflectionUtils(FullExampleTwoArgs.class, argsParser);
+            sut.setStartupExecutor(pool);
+            assertThrows(AssertArgsError.class, () -> {
+                sut.loadModules(BASE_PKG);
+            });
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Set<Class<?>> types(Set<IInjectorConfig> modules) {
+        var types = new HashSet<Class<?>>();
+        for (var m : modules) {
+            types.add(m.getClass());
+        }
+        return types;
+    }
+
     @Test
     public void moduleWithNoArgsConstructorWorks() throws Exception {
         var actual = loadModules(OnlyNoArgsConstructor.class);
@@ -187,6 +348,46 @@ public class ReflectionUtilsTest {
         assertEquals(3, actualLog.size());
     }
 
+    @Test
+    public void lazyArgsAreParsedOnFirstProvision() {
+        var args = new Args();
+        when(argsParser.create(Args.class)).thenReturn(args);
+        sut = new ReflectionUtils(LazyConfig.class, argsParser);
+        sut.setLazyArgs(true);
+        var mods = sut.loadModules(BASE_PKG);
+        assertEquals(2, mods.size());
+        verify(argsParser, never()).parse(Args.class, args);
+        verify(argsParser, never()).parse(Args.class);
+
+        var injector = Guice.createInjector(mods);
+        verify(argsParser, never()).parse(Args.class, args);
+        assertEquals("123", injector.getInstance(String.class));
+        assertEquals("123", injector.getInstance(String.class));
+        verify(argsParser, times(1)).parse(Args.class, args);
+    }
+
+    @Test
+    public void eagerConfigsParseDeferredArgs() {
+        when(argsParser.create(Args.class)).thenReturn(new Args());
+        sut = new ReflectionUtils(LazyAndEager.class, argsParser);
+        sut.setLazyArgs(true);
+        var mods = sut.loadModules(BASE_PKG);
+        // all args have been parsed, so no listener is needed
+        assertEquals(Set.of(M11.class, M12.class), types(mods));
+        assertEquals(1, mockingDetails(argsParser).getInvocations().stream() //
+                .filter(i -> i.getMethod().getName().equals("parse")) //
+                .count());
+    }
+
+    @Test
+    public void configsThatOverrideConfigureAreParsedEagerly() {
+        sut = new ReflectionUtils(OverridesConfigure.class, argsParser);
+        sut.setLazyArgs(true);
+        var mods = sut.loadModules(BASE_PKG);
+        assertEquals(1, mods.size());
+        verify(argsParser).parse(Args.class);
+    }
+
     private static void assertEmptySet(Set<?> actual) {
         var expected = Set.of();
         assertEquals(expected, actual);
@@ -296,6 +497,40 @@ public class ReflectionUtilsTest {
         }
     }
 
+    @interface LazyConfig {}
+
+    @LazyConfig
+    public static class M10 extends InjectorConfigBase {
+        public Args args;
+
+        public M10(Args args) {
+            this.args = args;
+        }
+
+        @Provides
+        public String provideString() {
+            return Integer.toString(args.i);
+        }
+    }
+
+    @interface OverridesConfigure {}
+
+    @OverridesConfigure
+    @LazyAndEager
+    public static class M11 extends InjectorConfigBase {
+        public M11(Args args) {}
+
+        @Override
+        public void configure(Binder binder) {}
+    }
+
+    @interface LazyAndEager {}
+
+    @LazyAndEager
+    public static class M12 extends InjectorConfigBase {
+        public M12(Args args) {}
+    }
+
     public static class Args {
         public int i = 123;
     }
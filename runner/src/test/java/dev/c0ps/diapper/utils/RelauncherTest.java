@@ -0,0 +1,90 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class RelauncherTest {
+
+    @Test
+    public void commandStartsWithJava() {
+        var cmd = Relauncher.command(List.of(), a -> false, new String[0]);
+        assertTrue(cmd.get(0).endsWith("java"), cmd.get(0));
+    }
+
+    @Test
+    public void commandContainsExtraArgsAndRawArgs() {
+        var cmd = Relauncher.command(List.of("-Dx=1"), a -> false, new String[] { "--a", "b" });
+        assertTrue(cmd.contains("-Dx=1"));
+        assertEquals(List.of("--a", "b"), cmd.subList(cmd.size() - 2, cmd.size()));
+    }
+
+    @Test
+    public void currentJvmArgsAreKept() {
+        var cmd = Relauncher.command(List.of(), a -> false, new String[0]);
+        assertTrue(cmd.containsAll(Relauncher.jvmArgs()));
+    }
+
+    @Test
+    public void jvmArgsCanBeDropped() {
+        var cmd = Relauncher.command(List.of(), a -> true, new String[0]);
+        for (var arg : Relauncher.jvmArgs()) {
+            assertFalse(cmd.contains(arg), arg);
+        }
+    }
+
+    @Test
+    public void mainClassIsStartedWithClassPath() {
+        var cmd = Relauncher.mainCommand("a.b.Main --x y z", "/some dir/x.jar:/y");
+        assertEquals(List.of("-cp", "/some dir/x.jar:/y", "a.b.Main"), cmd);
+    }
+
+    @Test
+    public void jarPathCanContainSpaces() {
+        var cmd = Relauncher.mainCommand("/some dir/app x.jar --x y", "/some dir/app x.jar");
+        assertEquals(List.of("-jar", "/some dir/app x.jar"), cmd);
+    }
+
+    @Test
+    public void jarWithoutArgsIsFound() {
+        var cmd = Relauncher.mainCommand("app.jar", "app.jar");
+        assertEquals(List.of("-jar", "app.jar"), cmd);
+    }
+
+    @Test
+    public void missingMainClassFails() {
+        assertThrows(IllegalStateException.class, () -> Relauncher.mainCommand("", ""));
+    }
+
+    @Test
+    public void unknownJvmArgIsNotFound() {
+        assertFalse(Relauncher.hasJvmArg("-XX:DoesNotExist"));
+    }
+
+    @Test
+    public void exitCodeIsReturned() {
+        var java = Relauncher.command(List.of(), a -> false, new String[0]).get(0);
+        assertEquals(0, Relauncher.run(List.of(java, "-version")));
+        assertTrue(Relauncher.run(List.of(java, "-XX:+DoesNotExist")) != 0);
+    }
+}
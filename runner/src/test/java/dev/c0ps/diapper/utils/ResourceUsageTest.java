@@ -0,0 +1,108 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static dev.c0ps.test.TestLoggerUtils.getFormattedLogs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.c0ps.diapper.utils.ResourceUsage.Summary;
+import dev.c0ps.diapper.utils.ResourceUsage.ThreadUsage;
+import dev.c0ps.test.TestLoggerUtils;
+
+public class ResourceUsageTest {
+
+    @TempDir
+    private File tempDir;
+
+    @BeforeEach
+    public void setup() {
+        TestLoggerUtils.clearLog();
+    }
+
+    @Test
+    public void allocationsOfThisThreadAreAccounted() {
+        var sut = ResourceUsage.start();
+        var data = new byte[10][];
+        for (var i = 0; i < data.length; i++) {
+            data[i] = new byte[1024 * 1024];
+        }
+        var s = sut.stop();
+        assertTrue(s.allocatedBytes >= 10 * 1024 * 1024, Long.toString(s.allocatedBytes));
+        assertTrue(s.wallNanos > 0);
+        assertTrue(s.peakHeapBytes > 0);
+        assertTrue(s.peakThreads > 0);
+        var isFound = false;
+        for (var t : s.threads) {
+            isFound |= t.name.equals(Thread.currentThread().getName()) && t.allocatedBytes >= 10 * 1024 * 1024;
+        }
+        assertTrue(isFound);
+    }
+
+    @Test
+    public void peakHeapCoversLiveData() {
+        var sut = ResourceUsage.start();
+        var data = new byte[20][];
+        for (var i = 0; i < data.length; i++) {
+            data[i] = new byte[1024 * 1024];
+        }
+        System.gc();
+        var s = sut.stop();
+        assertTrue(s.peakHeapBytes >= 20 * 1024 * 1024, Long.toString(s.peakHeapBytes));
+        assertTrue(s.peakHeapBytes <= Runtime.getRuntime().totalMemory(), Long.toString(s.peakHeapBytes));
+        assertTrue(data[0].length > 0);
+    }
+
+    @Test
+    public void summaryIsLogged() {
+        ResourceUsage.log(summary());
+        var logs = getFormattedLogs(ResourceUsage.class);
+        assertEquals(1, logs.size());
+        var expected = "INFO Run took 3 ms (2 ms CPU), allocated 2.0 MB, 4 GCs (5 ms), peak heap 1.0 MB, peak threads 6, top threads:\n" //
+                + "         1.0 ms CPU         2.0 MB allocated  a \"b\"";
+        assertEquals(expected, logs.get(0));
+    }
+
+    @Test
+    public void summaryIsWrittenAsJson() throws IOException {
+        var file = new File(tempDir, "usage.json");
+        ResourceUsage.write(summary(), "x.Y", file);
+        var expected = "{\"runnable\":\"x.Y\",\"wallMs\":3,\"cpuMs\":2,\"allocatedBytes\":2097152,\"gcCount\":4,\"gcMs\":5,\"peakHeapBytes\":1048576,\"peakThreads\":6," //
+                + "\"threads\":[{\"name\":\"a \\\"b\\\"\",\"cpuMs\":1,\"allocatedBytes\":2097152}]}\n";
+        assertEquals(expected, Files.readString(file.toPath()));
+    }
+
+    private static Summary summary() {
+        var s = new Summary();
+        s.wallNanos = 3_000_000;
+        s.cpuNanos = 2_000_000;
+        s.allocatedBytes = 2 * 1024 * 1024;
+        s.gcCount = 4;
+        s.gcMs = 5;
+        s.peakHeapBytes = 1024 * 1024;
+        s.peakThreads = 6;
+        s.threads.add(new ThreadUsage("a \"b\"", 1_000_000, 2 * 1024 * 1024));
+        return s;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.c0ps.diapper.InjectorConfig;
+
+public class ScanCacheTest {
+
+    private static final String PKG = "a.b";
+
+    @TempDir
+    private File tmp;
+
+    private File cacheDir;
+    private File jar;
+    private File dir;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        cacheDir = new File(tmp, "cache");
+        jar = new File(tmp, "lib.jar");
+        Files.writeString(jar.toPath(), "...");
+        dir = new File(tmp, "classes");
+        write(new File(dir, "a/b/X.class"), "x");
+    }
+
+    @Test
+    public void missOnEmptyCache() throws IOException {
+        var sut = newCache();
+        assertNull(sut.get(url(jar), PKG));
+        assertEquals(0, sut.getHits());
+        assertEquals(1, sut.getMisses());
+    }
+
+    @Test
+    public void hitAfterPut() throws IOException {
+        var sut = newCache();
+        sut.put(url(jar), PKG, Set.of("a.b.C"), 12);
+        assertEquals(Set.of("a.b.C"), sut.get(url(jar), PKG));
+        assertEquals(1, sut.getHits());
+        assertEquals(12, sut.getSavedMs());
+    }
+
+    @Test
+    public void scanOfRootIsOnlySavedOnce() throws IOException {
+        var sut = newCache();
+        sut.put(url(jar), PKG, Set.of("a.b.C"), 12);
+        sut.put(url(jar), "x.y", Set.of(), 12);
+        sut.get(url(jar), PKG);
+        sut.get(url(jar), "x.y");
+        assertEquals(12, sut.getSavedMs());
+    }
+
+    @Test
+    public void nothingIsSavedForRescannedRoot() throws IOException {
+        var sut = newCache();
+        sut.put(url(jar), PKG, Set.of("a.b.C"), 12);
+        sut.get(url(jar), PKG);
+        assertNull(sut.get(url(jar), "x.y"));
+        assertEquals(1, sut.getHits());
+        assertEquals(0, sut.getSavedMs());
+    }
+
+    @Test
+    public void packagesAreSeparated() throws IOException {
+        var sut = newCache();
+        sut.put(url(jar), PKG, Set.of("a.b.C"), 12);
+        assertNull(sut.get(url(jar), "x.y"));
+    }
+
+    @Test
+    public void persistsAcrossInstances() throws IOException {
+        var sut = newCache();
+        sut.put(url(jar), PKG, Set.of("a.b.C", "a.b.D"), 12);
+        sut.put(url(dir), PKG, Set.of(), 3);
+        sut.store();
+
+        sut = newCache();
+        assertEquals(Set.of("a.b.C", "a.b.D"), sut.get(url(jar), PKG));
+        assertEquals(Set.of(), sut.get(url(dir), PKG));
+        assertEquals(2, sut.getHits());
+        assertEquals(15, sut.getSavedMs());
+    }
+
+    @Test
+    public void jarUrlsAreEquivalent() throws IOException {
+        var sut = newCache();
+        sut.put(url(jar), PKG, Set.of("a.b.C"), 12);
+        var jarUrl = new URL("jar:" + url(jar) + "!/");
+        assertEquals(Set.of("a.b.C"), sut.get(jarUrl, PKG));
+    }
+
+    @Test
+    public void changedJarInvalidatesEntry() throws IOException {
+        var sut = newCache();
+        sut.put(url(jar), PKG, Set.of("a.b.C"), 12);
+        sut.put(url(dir), PKG, Set.of("a.b.X"), 12);
+        sut.store();
+
+        Files.writeString(jar.toPath(), "......");
+
+        sut = newCache();
+        assertNull(sut.get(url(jar), PKG));
+        assertEquals(Set.of("a.b.X"), sut.get(url(dir), PKG));
+    }
+
+    @Test
+    public void changedDirectoryInvalidatesEntry() throws IOException {
+        var before = ScanCache.fingerprint(url(dir), PKG);
+        write(new File(dir, "a/b/c/Y.class"), "y");
+        var after = ScanCache.fingerprint(url(dir), PKG);
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    public void unrelatedPackageDoesNotInvalidateDirectory() throws IOException {
+        var before = ScanCache.fingerprint(url(dir), PKG);
+        write(new File(dir, "x/Y.class"), "y");
+        var after = ScanCache.fingerprint(url(dir), PKG);
+        assertEquals(before, after);
+    }
+
+    @Test
+    public void nothingIsWrittenWithoutChanges() throws IOException {
+        newCache().store();
+        assertFalse(cacheDir.exists());
+    }
+
+    @Test
+    public void corruptCacheIsIgnored() throws IOException {
+        write(new File(cacheDir, InjectorConfig.class.getName() + ".scancache"), "garbage");
+        var sut = newCache();
+        assertNull(sut.get(url(jar), PKG));
+        sut.put(url(jar), PKG, Set.of("a.b.C"), 12);
+        sut.store();
+        assertEquals(Set.of("a.b.C"), newCache().get(url(jar), PKG));
+    }
+
+    @Test
+    public void nonExistingRootsAreNotCached() throws IOException {
+        var sut = newCache();
+        var nonExisting = url(new File(tmp, "non-existing.jar"));
+        sut.put(nonExisting, PKG, Set.of("a.b.C"), 12);
+        assertNull(sut.get(nonExisting, PKG));
+        sut.store();
+        assertFalse(cacheDir.exists());
+    }
+
+    private ScanCache newCache() {
+        return new ScanCache(cacheDir, InjectorConfig.class);
+    }
+
+    private static URL url(File f) throws IOException {
+        return f.toURI().toURL();
+    }
+
+    private static void write(File f, String content) throws IOException {
+        f.getParentFile().mkdirs();
+        Files.writeString(f.toPath(), content);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class StackSamplerTest {
+
+    @TempDir
+    private File tempDir;
+
+    @Test
+    public void runningThreadsAreSampled() {
+        var sut = new StackSampler(new File(tempDir, "x"));
+        sut.sample();
+        sut.sample();
+        var thisFrame = StackSamplerTest.class.getName() + ".runningThreadsAreSampled";
+        var isFound = false;
+        for (var e : sut.stacks().entrySet()) {
+            if (e.getKey().contains(thisFrame)) {
+                isFound = true;
+                assertEquals(2, e.getValue());
+            }
+        }
+        assertTrue(isFound, sut.stacks().toString());
+    }
+
+    @Test
+    public void stacksAreCollapsedFromTheRoot() {
+        var info = ManagementFactory.getThreadMXBean().getThreadInfo(Thread.currentThread().getId(), Integer.MAX_VALUE);
+        var collapsed = StackSampler.collapse(info);
+        var frames = collapsed.split(";");
+        assertEquals(Thread.currentThread().getName().replace(' ', '_'), frames[0]);
+        assertTrue(frames[frames.length - 1].startsWith("sun.management.") || frames[frames.length - 1].contains("ThreadImpl"), collapsed);
+        assertFalse(collapsed.contains(" "));
+    }
+
+    @Test
+    public void samplesAreWrittenOnStop() throws IOException {
+        var file = new File(tempDir, "stacks.txt");
+        var sut = StackSampler.start(file, 1);
+        var end = System.currentTimeMillis() + 50;
+        while (System.currentTimeMillis() < end) {
+            Thread.onSpinWait();
+        }
+        sut.stop();
+        var lines = Files.readAllLines(file.toPath());
+        assertFalse(lines.isEmpty());
+        for (var l : lines) {
+            assertTrue(l.matches("[^ ]+ \\d+"), l);
+        }
+    }
+}
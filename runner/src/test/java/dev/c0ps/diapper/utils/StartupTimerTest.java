@@ -0,0 +1,149 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static dev.c0ps.test.TestLoggerUtils.getFormattedLogs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.c0ps.test.TestLoggerUtils;
+
+public class StartupTimerTest {
+
+    private StartupTimer sut;
+
+    @BeforeEach
+    public void setup() {
+        TestLoggerUtils.clearLog();
+        sut = new StartupTimer();
+    }
+
+    @Test
+    public void phasesAreRecordedInOrder() {
+        sut.add("b", 1);
+        sut.add("a", 2);
+        assertEquals(List.of("b", "a"), List.copyOf(sut.phases().keySet()));
+    }
+
+    @Test
+    public void samePhaseIsSummed() {
+        sut.add("a", 1);
+        sut.add("a", 2);
+        assertEquals(Map.of("a", 3L), sut.phases());
+    }
+
+    @Test
+    public void timeReturnsResult() {
+        assertEquals("x", sut.time("a", () -> "x"));
+        assertTrue(sut.phases().containsKey("a"));
+    }
+
+    @Test
+    public void timeRecordsFailedPhases() {
+        Runnable r = () -> {
+            throw new IllegalArgumentException();
+        };
+        assertThrows(IllegalArgumentException.class, () -> sut.time("a", r));
+        assertTrue(sut.phases().containsKey("a"));
+    }
+
+    @Test
+    public void phasesAreRecordedAsSpans() {
+        sut.time("a", () -> "x");
+        var spans = sut.spans();
+        assertEquals(1, spans.size());
+        assertEquals("a", spans.get(0).name);
+        assertEquals("startup", spans.get(0).category);
+        assertEquals(Thread.currentThread().getId(), spans.get(0).threadId);
+        assertTrue(sut.startNanos() <= spans.get(0).startNanos);
+        assertTrue(spans.get(0).startNanos <= spans.get(0).endNanos);
+    }
+
+    @Test
+    public void spansAreNoPhases() {
+        sut.span("a", "b", System.nanoTime(), Map.of("c", "d"));
+        assertEquals(Map.of(), sut.phases());
+        assertEquals(Map.of("c", "d"), sut.spans().get(0).args);
+    }
+
+    @Test
+    public void reportContainsAllPhases() {
+        sut.add("a", 1_500_000);
+        sut.add("b", 20_000_000);
+        sut.report(0);
+        var logs = getFormattedLogs(StartupTimer.class);
+        assertEquals(1, logs.size());
+        var log = logs.get(0);
+        assertTrue(log.startsWith("INFO Startup took "), log);
+        assertTrue(log.contains("\n        1.5 ms  a\n       20.0 ms  b"), log);
+    }
+
+    @Test
+    public void noWarningWithinBudget() {
+        sut.report(60_000);
+        assertEquals(1, getFormattedLogs(StartupTimer.class).size());
+    }
+
+    @Test
+    public void exceededBudgetNamesSlowestPhases() {
+        sut = new StartupTimer(System.nanoTime() - 100_000_000L);
+        sut.add("a", 1_000_000);
+        sut.add("b", 4_000_000);
+        sut.add("c", 3_000_000);
+        sut.add("d", 2_000_000);
+        sut.report(1);
+        var logs = getFormattedLogs(StartupTimer.class);
+        assertEquals(2, logs.size());
+        var log = logs.get(1);
+        assertTrue(log.startsWith("WARN Startup took "), log);
+        assertTrue(log.endsWith("exceeds the budget of 1 ms. Slowest phases: b (4.0 ms), c (3.0 ms), d (2.0 ms)"), log);
+    }
+
+    @Test
+    public void phasesWithinPhasesAreNested() {
+        sut.time("a", () -> sut.add("b", 1));
+        sut.add("c", 1);
+        assertFalse(sut.isNested("a"));
+        assertTrue(sut.isNested("b"));
+        assertFalse(sut.isNested("c"));
+    }
+
+    @Test
+    public void phasesOnOtherThreadsAreNested() throws InterruptedException {
+        var t = new Thread(() -> sut.add("a", 1));
+        t.start();
+        t.join();
+        assertTrue(sut.isNested("a"));
+    }
+
+    @Test
+    public void nestedPhasesAreNotRanked() {
+        sut = new StartupTimer(System.nanoTime() - 100_000_000L);
+        sut.time("a", () -> sut.add("b", 50_000_000));
+        sut.report(1);
+        var logs = getFormattedLogs(StartupTimer.class);
+        assertTrue(logs.get(1).contains("Slowest phases: a ("), logs.get(1));
+        assertFalse(logs.get(1).contains("b ("), logs.get(1));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.c0ps.diapper.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.c0ps.diapper.AssertArgsError;
+
+public class ThreadPoolsTest {
+
+    private ExecutorService sut;
+
+    @BeforeEach
+    public void setup() {
+        sut = ThreadPools.newPool("test", 2);
+    }
+
+    @AfterEach
+    public void teardown() {
+        sut.shutdownNow();
+    }
+
+    @Test
+    public void threadsAreNamedDaemons() {
+        var t = ThreadPools.await(sut.submit(() -> Thread.currentThread()));
+        assertTrue(t.isDaemon());
+        assertTrue(t.getName().startsWith("test-"), t.getName());
+    }
+
+    @Test
+    public void resultsAreReturned() {
+        assertEquals("x", ThreadPools.await(sut.submit(() -> "x")));
+    }
+
+    @Test
+    public void runtimeExceptionsAreUnwrapped() {
+        var e = new IllegalArgumentException();
+        assertSame(e, assertThrows(IllegalArgumentException.class, () -> {
+            ThreadPools.await(CompletableFuture.failedFuture(e));
+        }));
+    }
+
+    @Test
+    public void errorsAreUnwrapped() {
+        var e = new AssertArgsError();
+        assertSame(e, assertThrows(AssertArgsError.class, () -> {
+            ThreadPools.await(CompletableFuture.failedFuture(e));
+        }));
+    }
+
+    @Test
+    public void checkedExceptionsAreWrapped() {
+        var e = new IOException();
+        assertSame(e, assertThrows(IllegalStateException.class, () -> {
+            ThreadPools.await(CompletableFuture.failedFuture(e));
+        }).getCause());
+    }
+}
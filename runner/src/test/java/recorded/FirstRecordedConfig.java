@@ -0,0 +1,51 @@
+/*
+ * Copyright 2023 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package recorded;
+
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.inject.Binder;
+
+import dev.c0ps.diapper.IInjectorConfig;
+import dev.c0ps.diapper.InjectorConfig;
+
+@InjectorConfig
+public class FirstRecordedConfig implements IInjectorConfig {
+
+    public static final Set<String> THREADS = ConcurrentHashMap.newKeySet();
+
+    // only passed when both configs are configured at the same time
+    private static final CyclicBarrier BARRIER = new CyclicBarrier(2);
+
+    @Override
+    public void configure(Binder binder) {
+        awaitOther();
+    }
+
+    /* pkg protected */ static void awaitOther() {
+        THREADS.add(Thread.currentThread().getName());
+        try {
+            BARRIER.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+            // configured sequentially
+        }
+    }
+}